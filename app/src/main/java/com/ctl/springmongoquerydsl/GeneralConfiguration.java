@@ -0,0 +1,275 @@
+package com.ctl.springmongoquerydsl;
+
+import com.ctl.springmongoquerydsl.dao.Partition;
+import com.ctl.springmongoquerydsl.dao.PartitionedQueryExecutor;
+import com.ctl.springmongoquerydsl.dao.PersonCacheInvalidationListener;
+import com.ctl.springmongoquerydsl.dao.PersonChangeStreamInvalidator;
+import com.ctl.springmongoquerydsl.dao.QueryResultCache;
+import com.ctl.springmongoquerydsl.jackson.BsonFilterTranslator;
+import com.ctl.springmongoquerydsl.jackson.BsonJsonTranscoder;
+import com.ctl.springmongoquerydsl.jackson.DefaultQueryDslDeserializer;
+import com.ctl.springmongoquerydsl.jackson.DefaultQueryDslDeserializer.ParserMode;
+import com.ctl.springmongoquerydsl.jackson.EntityPathRegistry;
+import com.ctl.springmongoquerydsl.jackson.PredicateTemplateCache;
+import com.ctl.springmongoquerydsl.jackson.QueryComplexityLimits;
+import com.ctl.springmongoquerydsl.jackson.QueryDslDeserializerRegistry;
+import com.ctl.springmongoquerydsl.metrics.QueryMetrics;
+import com.ctl.springmongoquerydsl.model.Person;
+import com.ctl.springmongoquerydsl.query.IndexPlanner;
+import com.ctl.springmongoquerydsl.query.QueryAdmission;
+import com.ctl.springmongoquerydsl.query.QueryCoalescer;
+import com.ctl.springmongoquerydsl.snapshot.CollectionSnapshot;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.module.paramnames.ParameterNamesModule;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class GeneralConfiguration {
+
+    /**
+     * The plain @RequestBody predicates are person predicates, the {@link com.ctl.springmongoquerydsl.controller.JsonPredicate}
+     * parameters choose their entity
+     */
+    @Bean
+    public Jackson2ObjectMapperBuilder jacksonBuilder(DefaultQueryDslDeserializer<Person> personDeserializer) {
+        Jackson2ObjectMapperBuilder b = new Jackson2ObjectMapperBuilder();
+        b.featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        b.deserializers(personDeserializer);
+        b.modules(new ParameterNamesModule(), new Jdk8Module(), new JavaTimeModule());
+        return b;
+    }
+
+    @Bean
+    @SuppressWarnings("unchecked")
+    public DefaultQueryDslDeserializer<Person> personDeserializer(EntityPathRegistry pathRegistry,
+                                                                  Optional<PredicateTemplateCache> templateCache,
+                                                                  @Value("${querydsl.parser-mode:TREE}") ParserMode parserMode,
+                                                                  QueryMetrics queryMetrics,
+                                                                  QueryComplexityLimits complexityLimits) {
+        DefaultQueryDslDeserializer<Person> deserializer = new DefaultQueryDslDeserializer(Person.class);
+        deserializer.setPathRegistry(pathRegistry);
+        templateCache.ifPresent(deserializer::setTemplateCache);
+        deserializer.setParserMode(parserMode);
+        deserializer.setMetrics(queryMetrics);
+        deserializer.setComplexityLimits(complexityLimits);
+        return deserializer;
+    }
+
+    /**
+     * Deserializer of each mapped document : the person one, and a copy of it for the other documents, with the
+     * indexes of their collection
+     */
+    @Bean
+    public QueryDslDeserializerRegistry queryDslDeserializerRegistry(DefaultQueryDslDeserializer<Person> personDeserializer,
+                                                                     QueryComplexityLimits queryComplexityLimits,
+                                                                     MongoOperations mongoOperations,
+                                                                     MongoMappingContext mappingContext,
+                                                                     @Value("${querydsl.index-planner.policy:WARN}") IndexPlanner.Policy policy) {
+        QueryDslDeserializerRegistry registry = new QueryDslDeserializerRegistry();
+        registry.register(personDeserializer);
+        for (MongoPersistentEntity<?> entity : mappingContext.getPersistentEntities()) {
+            if (entity.getType().isAnnotationPresent(Document.class) && !registry.getEntityClasses().contains(entity.getType())) {
+                DefaultQueryDslDeserializer<?> deserializer = personDeserializer.copyFor(entity.getType());
+                deserializer.setComplexityLimits(queryComplexityLimits.withIndexedPaths(
+                        new IndexPlanner(mongoOperations, mappingContext, entity.getType(), policy)));
+                registry.register(deserializer);
+            }
+        }
+        return registry;
+    }
+
+    /**
+     * Translates the simple json person predicates straight into mongo filters
+     */
+    @Bean
+    public BsonFilterTranslator personFilterTranslator(DefaultQueryDslDeserializer<Person> personDeserializer) {
+        return new BsonFilterTranslator(personDeserializer);
+    }
+
+    /**
+     * Writes the raw person documents of the pass-through responses, with the json names of the object mapper
+     */
+    @Bean
+    public BsonJsonTranscoder personJsonTranscoder(MongoMappingContext mappingContext, ObjectMapper objectMapper) {
+        return new BsonJsonTranscoder(mappingContext, objectMapper, Person.class);
+    }
+
+    /**
+     * Registry of the queryDSL paths : the tables generated at compile time, the paths of the other mapped documents
+     * are resolved at startup
+     */
+    @Bean
+    public EntityPathRegistry entityPathRegistry(MongoMappingContext mappingContext,
+                                                 @Value("${querydsl.path-registry.maximum-size:10000}") long maximumSize) {
+        EntityPathRegistry registry = new EntityPathRegistry(maximumSize);
+        registry.registerGeneratedTables();
+        mappingContext.getPersistentEntities().forEach(entity -> registry.register(entity.getType()));
+        return registry;
+    }
+
+    /**
+     * Cache of compiled predicate templates, opt-in with querydsl.template-cache.enabled=true
+     */
+    @Bean
+    @ConditionalOnProperty(name = "querydsl.template-cache.enabled", havingValue = "true")
+    public PredicateTemplateCache predicateTemplateCache(@Value("${querydsl.template-cache.maximum-size:500}") long maximumSize) {
+        return new PredicateTemplateCache(maximumSize);
+    }
+
+    /**
+     * Check of the person predicates against the indexes of the collection
+     */
+    @Bean
+    public IndexPlanner personIndexPlanner(MongoOperations mongoOperations, MongoMappingContext mappingContext,
+                                           @Value("${querydsl.index-planner.policy:WARN}") IndexPlanner.Policy policy) {
+        return new IndexPlanner(mongoOperations, mappingContext, Person.class, policy);
+    }
+
+    /**
+     * Bounds of the json predicates, the regex conditions are counted on the paths without index, 0 is no bound
+     */
+    @Bean
+    public QueryComplexityLimits queryComplexityLimits(IndexPlanner personIndexPlanner,
+                                                       @Value("${querydsl.limits.max-depth:10}") int maxDepth,
+                                                       @Value("${querydsl.limits.max-nodes:0}") int maxNodes,
+                                                       @Value("${querydsl.limits.max-in-size:0}") int maxInSize,
+                                                       @Value("${querydsl.limits.max-unindexed-regex:2}") int maxUnindexedRegex) {
+        QueryComplexityLimits limits = new QueryComplexityLimits(orUnbounded(maxDepth), orUnbounded(maxNodes),
+                orUnbounded(maxInSize), orUnbounded(maxUnindexedRegex));
+        limits.setIndexedPaths(personIndexPlanner);
+        return limits;
+    }
+
+    /**
+     * Concurrency limit of the person queries, per cost class
+     */
+    @Bean
+    public QueryAdmission queryAdmission(IndexPlanner personIndexPlanner,
+                                         @Value("${querydsl.admission.expensive-cost:100}") int expensiveCost,
+                                         @Value("${querydsl.admission.cheap-permits:64}") int cheapPermits,
+                                         @Value("${querydsl.admission.expensive-permits:4}") int expensivePermits,
+                                         @Value("${querydsl.admission.timeout-ms:1000}") long timeoutMillis) {
+        return new QueryAdmission(expensiveCost, cheapPermits, expensivePermits, timeoutMillis, personIndexPlanner);
+    }
+
+    /**
+     * Executor of the batch queries : a fixed number of threads and a bounded queue, the queries submitted when
+     * it is full are rejected
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService batchQueryExecutor(@Value("${querydsl.batch.threads:8}") int threads,
+                                              @Value("${querydsl.batch.queue-size:200}") int queueSize) {
+        return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueSize));
+    }
+
+    /**
+     * Executor opening the cursors of the partitions, bounded like the batch executor
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService partitionQueryExecutor(@Value("${querydsl.partitions.threads:8}") int threads,
+                                                  @Value("${querydsl.partitions.queue-size:200}") int queueSize) {
+        return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueSize));
+    }
+
+    /**
+     * The person collections queried by /rest/find/partitioned, the person collection when none is configured
+     */
+    @Bean
+    public PartitionedQueryExecutor<Person> personPartitionedQueryExecutor(MongoOperations mongoOperations,
+                                                                          @Qualifier("partitionQueryExecutor") ExecutorService executor,
+                                                                          @Value("${querydsl.partitions.collections:}") String[] collections,
+                                                                          @Value("${querydsl.partitions.timeout-ms:2000}") long timeoutMillis) {
+        List<Partition> partitions = new ArrayList<>();
+        for (String collection : collections) {
+            if (!collection.trim().isEmpty()) {
+                partitions.add(new Partition(collection.trim(), mongoOperations, collection.trim()));
+            }
+        }
+        if (partitions.isEmpty()) {
+            String collection = mongoOperations.getCollectionName(Person.class);
+            partitions.add(new Partition(collection, mongoOperations, collection));
+        }
+        return new PartitionedQueryExecutor<>(Person.class, mongoOperations.getConverter().getMappingContext(), partitions, executor, timeoutMillis);
+    }
+
+    /**
+     * Cache of the /find results, opt-in with querydsl.result-cache.enabled=true
+     */
+    @Bean
+    @ConditionalOnProperty(name = "querydsl.result-cache.enabled", havingValue = "true")
+    public QueryResultCache<Person> personResultCache(@Value("${querydsl.result-cache.maximum-size:1000}") long maximumSize,
+                                                      @Value("${querydsl.result-cache.maximum-bytes:67108864}") long maximumBytes,
+                                                      @Value("${querydsl.result-cache.ttl-seconds:60}") long ttlSeconds) {
+        // object headers and references, plus two bytes per character
+        return new QueryResultCache<>(maximumSize, maximumBytes, ttlSeconds, person -> 64
+                + 2 * (length(person.getId()) + length(person.getName()) + length(person.getFamily())));
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "querydsl.result-cache.enabled", havingValue = "true")
+    public PersonCacheInvalidationListener personCacheInvalidationListener(QueryResultCache<Person> personResultCache) {
+        return new PersonCacheInvalidationListener(personResultCache);
+    }
+
+    /**
+     * Invalidation of the cache by the mongo change stream, needs a replica set
+     */
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    @ConditionalOnProperty(name = {"querydsl.result-cache.enabled", "querydsl.result-cache.change-stream.enabled"}, havingValue = "true")
+    public PersonChangeStreamInvalidator personChangeStreamInvalidator(ReactiveMongoOperations mongoOperations,
+                                                                     MongoMappingContext mappingContext,
+                                                                     QueryResultCache<Person> personResultCache) {
+        return new PersonChangeStreamInvalidator(mongoOperations, mappingContext, personResultCache);
+    }
+
+    /**
+     * Single execution of the identical /rest/find queries running at the same time
+     */
+    @Bean
+    @ConditionalOnProperty(name = "querydsl.coalescing.enabled", havingValue = "true")
+    public QueryCoalescer<Person> personQueryCoalescer(@Value("${querydsl.coalescing.timeout-ms:5000}") long timeoutMillis) {
+        return new QueryCoalescer<>(timeoutMillis);
+    }
+
+    /**
+     * Local snapshot of the persons answering /rest/find, opt-in with querydsl.snapshot.enabled=true
+     */
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    @ConditionalOnProperty(name = "querydsl.snapshot.enabled", havingValue = "true")
+    public CollectionSnapshot<Person> personSnapshot(MongoOperations mongoOperations,
+                                                     @Value("${querydsl.snapshot.change-stream.enabled:false}") boolean changeStream,
+                                                     @Value("${querydsl.snapshot.refresh-ms:5000}") long refreshMillis,
+                                                     @Value("${querydsl.snapshot.maximum-documents:100000}") int maximumDocuments) {
+        return new CollectionSnapshot<>(mongoOperations, changeStream, Person.class,
+                refreshMillis, maximumDocuments);
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+
+    private static int orUnbounded(int limit) {
+        return limit <= 0 ? Integer.MAX_VALUE : limit;
+    }
+}
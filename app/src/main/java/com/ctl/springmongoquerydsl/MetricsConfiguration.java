@@ -0,0 +1,112 @@
+package com.ctl.springmongoquerydsl;
+
+import com.ctl.springmongoquerydsl.dao.QueryResultCache;
+import com.ctl.springmongoquerydsl.jackson.EntityPathRegistry;
+import com.ctl.springmongoquerydsl.jackson.PredicateTemplateCache;
+import com.ctl.springmongoquerydsl.metrics.MicrometerQueryMetrics;
+import com.ctl.springmongoquerydsl.metrics.MongoCommandMetrics;
+import com.ctl.springmongoquerydsl.metrics.QueryMetrics;
+import com.ctl.springmongoquerydsl.model.Person;
+import com.ctl.springmongoquerydsl.query.IndexPlanner;
+import com.ctl.springmongoquerydsl.query.QueryCoalescer;
+import com.google.common.cache.CacheStats;
+import com.mongodb.MongoClientOptions;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Micrometer instrumentation of the queries, exposed by the actuator. Disabled with querydsl.metrics.enabled=false,
+ * the phases are then not even timed.
+ */
+@Configuration
+public class MetricsConfiguration {
+
+    @Bean
+    public QueryMetrics queryMetrics(ObjectProvider<MeterRegistry> registry,
+                                     @Value("${querydsl.metrics.enabled:true}") boolean enabled) {
+        return enabled ? new MicrometerQueryMetrics(registry.getObject()) : QueryMetrics.NOOP;
+    }
+
+    /**
+     * Timers of the mongo commands, tagged by filter shape
+     */
+    @Bean
+    @ConditionalOnProperty(name = "querydsl.metrics.enabled", havingValue = "true", matchIfMissing = true)
+    public MongoCommandMetrics mongoCommandMetrics(MeterRegistry registry,
+                                                   @Value("${querydsl.metrics.maximum-shapes:200}") int maximumShapes) {
+        return new MongoCommandMetrics(registry, maximumShapes);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "querydsl.metrics.enabled", havingValue = "true", matchIfMissing = true)
+    public MongoClientOptions mongoClientOptions(MongoCommandMetrics mongoCommandMetrics) {
+        return MongoClientOptions.builder()
+                .addCommandListener(mongoCommandMetrics)
+                .build();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "querydsl.metrics.enabled", havingValue = "true", matchIfMissing = true)
+    public MongoClientSettingsBuilderCustomizer reactiveMongoCommandMetrics(MongoCommandMetrics mongoCommandMetrics) {
+        return builder -> builder.addCommandListener(mongoCommandMetrics);
+    }
+
+    /**
+     * Hits, misses, evictions, hit ratios and sizes of the caches, coalesced queries, and the number of unindexed
+     * queries
+     */
+    @Bean
+    @ConditionalOnProperty(name = "querydsl.metrics.enabled", havingValue = "true", matchIfMissing = true)
+    public MeterBinder queryCacheMetrics(EntityPathRegistry pathRegistry,
+                                         Optional<PredicateTemplateCache> templateCache,
+                                         Optional<QueryResultCache<Person>> resultCache,
+                                         Optional<QueryCoalescer<Person>> queryCoalescer,
+                                         IndexPlanner indexPlanner) {
+        return registry -> {
+            Gauge.builder("querydsl.path-registry.size", pathRegistry, EntityPathRegistry::size).register(registry);
+            Gauge.builder("querydsl.path-registry.hit-ratio", pathRegistry, r -> r.getStats().hitRate()).register(registry);
+            registerCacheCounters(registry, "querydsl.path-registry", pathRegistry, EntityPathRegistry::getStats);
+            templateCache.ifPresent(cache -> {
+                Gauge.builder("querydsl.template-cache.size", cache, PredicateTemplateCache::size).register(registry);
+                Gauge.builder("querydsl.template-cache.hit-ratio", cache, c -> c.getStats().hitRate()).register(registry);
+                registerCacheCounters(registry, "querydsl.template-cache", cache, PredicateTemplateCache::getStats);
+            });
+            resultCache.ifPresent(cache -> {
+                Gauge.builder("querydsl.result-cache.size", cache, QueryResultCache::size).register(registry);
+                Gauge.builder("querydsl.result-cache.hit-ratio", cache, c -> c.getStats().hitRate()).register(registry);
+                Gauge.builder("querydsl.result-cache.bytes", cache, QueryResultCache::getEstimatedBytes).register(registry);
+                registerCacheCounters(registry, "querydsl.result-cache", cache, QueryResultCache::getStats);
+            });
+            queryCoalescer.ifPresent(coalescer -> {
+                FunctionCounter.builder("querydsl.coalescing.executions", coalescer, QueryCoalescer::getExecutionCount).register(registry);
+                FunctionCounter.builder("querydsl.coalescing.coalesced", coalescer, QueryCoalescer::getCoalescedCount).register(registry);
+                FunctionCounter.builder("querydsl.coalescing.timeouts", coalescer, QueryCoalescer::getTimeoutCount).register(registry);
+                Gauge.builder("querydsl.coalescing.ratio", coalescer, QueryCoalescer::getCoalescingRatio).register(registry);
+                Gauge.builder("querydsl.coalescing.in-flight", coalescer, QueryCoalescer::inFlight).register(registry);
+            });
+            FunctionCounter.builder("querydsl.index-planner.unindexed", indexPlanner, IndexPlanner::getUnindexedCount)
+                    .register(registry);
+        };
+    }
+
+    /**
+     * The hits and misses (name.gets tagged by result) and the evictions of a guava cache, as counters : the
+     * rates over any window can be computed from them, unlike from the hit ratio since the start
+     */
+    private static <T> void registerCacheCounters(MeterRegistry registry, String name, T cache, Function<T, CacheStats> stats) {
+        FunctionCounter.builder(name + ".gets", cache, c -> stats.apply(c).hitCount()).tag("result", "hit").register(registry);
+        FunctionCounter.builder(name + ".gets", cache, c -> stats.apply(c).missCount()).tag("result", "miss").register(registry);
+        FunctionCounter.builder(name + ".evictions", cache, c -> stats.apply(c).evictionCount()).register(registry);
+    }
+}
@@ -3,9 +3,11 @@ package com.ctl.springmongoquerydsl;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
+import org.springframework.data.mongodb.repository.config.EnableReactiveMongoRepositories;
 
 @SpringBootApplication
 @EnableMongoRepositories
+@EnableReactiveMongoRepositories
 public class SpringMongoQuerydslApplication {
 
     public static void main(String[] args) {
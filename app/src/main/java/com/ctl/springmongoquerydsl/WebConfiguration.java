@@ -0,0 +1,26 @@
+package com.ctl.springmongoquerydsl;
+
+import com.ctl.springmongoquerydsl.controller.JsonPredicateArgumentResolver;
+import com.ctl.springmongoquerydsl.jackson.QueryDslDeserializerRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+@Configuration
+public class WebConfiguration implements WebMvcConfigurer {
+
+    private final QueryDslDeserializerRegistry deserializerRegistry;
+
+    @Autowired
+    public WebConfiguration(QueryDslDeserializerRegistry deserializerRegistry) {
+        this.deserializerRegistry = deserializerRegistry;
+    }
+
+    @Override
+    public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+        resolvers.add(new JsonPredicateArgumentResolver(deserializerRegistry));
+    }
+}
@@ -0,0 +1,125 @@
+package com.ctl.springmongoquerydsl.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.util.NoSuchElementException;
+import java.util.function.Supplier;
+
+/**
+ * Build responses writing the documents of a cursor as they arrive, the memory used does not depend on the
+ * number of documents.
+ * <p>
+ * The cursor is opened when the response starts to be written and closed when it is done, including when the
+ * client disconnects (the write fails).
+ */
+public final class CursorResponses {
+
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+    public static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType(APPLICATION_NDJSON_VALUE);
+
+    private CursorResponses() {
+    }
+
+    /**
+     * Write the documents as a json array
+     *
+     * @param mapper the object mapper writing the documents
+     * @param cursor opens the cursor
+     * @return the streamed response
+     */
+    public static ResponseEntity<StreamingResponseBody> jsonArray(ObjectMapper mapper, Supplier<? extends CloseableIterator<?>> cursor) {
+        return CursorResponses.<Object>jsonArray(mapper, cursor, (document, generator) -> generator.writeObject(document));
+    }
+
+    /**
+     * Write the documents as a json array, with a specific writer
+     *
+     * @param mapper the object mapper of the generator
+     * @param cursor opens the cursor
+     * @param writer writes each document
+     * @return the streamed response
+     */
+    public static <T> ResponseEntity<StreamingResponseBody> jsonArray(ObjectMapper mapper, Supplier<? extends CloseableIterator<? extends T>> cursor,
+                                                                      DocumentWriter<T> writer) {
+        StreamingResponseBody body = outputStream -> {
+            try (CloseableIterator<? extends T> documents = cursor.get();
+                 JsonGenerator generator = mapper.getFactory().createGenerator(outputStream)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.writeStartArray();
+                writeDocuments(documents, generator, writer, false);
+                generator.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON_UTF8).body(body);
+    }
+
+    /**
+     * Write the documents as newline delimited json, one document per line
+     *
+     * @param mapper the object mapper writing the documents
+     * @param cursor opens the cursor
+     * @return the streamed response
+     */
+    public static ResponseEntity<StreamingResponseBody> ndjson(ObjectMapper mapper, Supplier<? extends CloseableIterator<?>> cursor) {
+        StreamingResponseBody body = outputStream -> {
+            try (CloseableIterator<?> documents = cursor.get();
+                 JsonGenerator generator = mapper.getFactory().createGenerator(outputStream)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.setRootValueSeparator(null);
+                writeDocuments(documents, generator, (document, json) -> json.writeObject(document), true);
+            }
+        };
+        return ResponseEntity.ok().contentType(APPLICATION_NDJSON).body(body);
+    }
+
+    /**
+     * @return a cursor without document, for the queries which can not match
+     */
+    public static <T> CloseableIterator<T> emptyCursor() {
+        return new CloseableIterator<T>() {
+            @Override
+            public boolean hasNext() {
+                return false;
+            }
+
+            @Override
+            public T next() {
+                throw new NoSuchElementException();
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    private static <T> void writeDocuments(CloseableIterator<? extends T> documents, JsonGenerator generator,
+                                           DocumentWriter<T> writer, boolean newLine) throws IOException {
+        boolean first = true;
+        while (documents.hasNext()) {
+            writer.write(documents.next(), generator);
+            if (newLine) {
+                generator.writeRaw('\n');
+            }
+            if (first) {
+                // send the first document right away, the next ones go through the generator buffer
+                generator.flush();
+                first = false;
+            }
+        }
+    }
+
+    /**
+     * Writes a document to the json generator
+     */
+    @FunctionalInterface
+    public interface DocumentWriter<T> {
+        void write(T document, JsonGenerator generator) throws IOException;
+    }
+}
@@ -0,0 +1,24 @@
+package com.ctl.springmongoquerydsl.controller;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * A {@link com.querydsl.core.types.Predicate} read from the json body of the request, with the paths of the
+ * specified entity.
+ * <p>
+ * ex : public Iterable&lt;Person&gt; findPersons(@JsonPredicate(Person.class) Predicate predicate)
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface JsonPredicate {
+
+    /**
+     * @return the root entity class of the predicate
+     */
+    Class<?> value();
+}
@@ -0,0 +1,43 @@
+package com.ctl.springmongoquerydsl.controller;
+
+import com.ctl.springmongoquerydsl.jackson.QueryDslDeserializerRegistry;
+import com.querydsl.core.types.Predicate;
+import org.springframework.core.MethodParameter;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Resolve the {@link JsonPredicate} parameters with the deserializer of their entity, the body is read directly
+ * from the request stream.
+ */
+public class JsonPredicateArgumentResolver implements HandlerMethodArgumentResolver {
+
+    private final QueryDslDeserializerRegistry deserializerRegistry;
+
+    /**
+     * Default constructor of {@link JsonPredicateArgumentResolver}
+     *
+     * @param deserializerRegistry the deserializers of the entities
+     */
+    public JsonPredicateArgumentResolver(QueryDslDeserializerRegistry deserializerRegistry) {
+        this.deserializerRegistry = deserializerRegistry;
+    }
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return parameter.hasParameterAnnotation(JsonPredicate.class)
+                && Predicate.class.isAssignableFrom(parameter.getParameterType());
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                  NativeWebRequest webRequest, WebDataBinderFactory binderFactory) throws Exception {
+        Class<?> entityClass = parameter.getParameterAnnotation(JsonPredicate.class).value();
+        HttpServletRequest request = webRequest.getNativeRequest(HttpServletRequest.class);
+        return deserializerRegistry.get(entityClass).deserializePredicate(request.getInputStream(), entityClass);
+    }
+}
@@ -0,0 +1,351 @@
+package com.ctl.springmongoquerydsl.controller;
+
+import com.ctl.springmongoquerydsl.dao.PartitionedResult;
+import com.ctl.springmongoquerydsl.dao.PersonRepository;
+import com.ctl.springmongoquerydsl.dao.QueryResultCache;
+import com.ctl.springmongoquerydsl.dao.ReactivePersonRepository;
+import com.ctl.springmongoquerydsl.jackson.BsonFilterTranslator;
+import com.ctl.springmongoquerydsl.jackson.BsonJsonTranscoder;
+import com.ctl.springmongoquerydsl.jackson.DefaultQueryDslDeserializer;
+import com.ctl.springmongoquerydsl.metrics.QueryMetrics;
+import com.ctl.springmongoquerydsl.model.Person;
+import com.ctl.springmongoquerydsl.query.AggregateRequest;
+import com.ctl.springmongoquerydsl.query.BatchQueryResult;
+import com.ctl.springmongoquerydsl.query.BulkWriteReport;
+import com.ctl.springmongoquerydsl.query.IndexPlanner;
+import com.ctl.springmongoquerydsl.query.PredicateOptimizer;
+import com.ctl.springmongoquerydsl.query.QueryAdmission;
+import com.ctl.springmongoquerydsl.query.QueryPage;
+import com.ctl.springmongoquerydsl.query.QueryCoalescer;
+import com.ctl.springmongoquerydsl.query.QueryRequest;
+import com.ctl.springmongoquerydsl.service.BatchQueryService;
+import com.ctl.springmongoquerydsl.service.PersonBulkService;
+import com.ctl.springmongoquerydsl.service.PersonQueryService;
+import com.ctl.springmongoquerydsl.snapshot.CollectionSnapshot;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.querydsl.core.types.Predicate;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import reactor.core.publisher.Flux;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+@RestController
+@RequestMapping("/rest")
+public class MyRestController {
+
+    /**
+     * header listing the partitions left out of a partitioned find
+     */
+    public static final String FAILED_PARTITIONS_HEADER = "X-Failed-Partitions";
+
+    private final PersonRepository personRepository;
+
+    private final ReactivePersonRepository reactivePersonRepository;
+
+    private final PersonQueryService personQueryService;
+
+    private final BatchQueryService batchQueryService;
+
+    private final PersonBulkService personBulkService;
+
+    private final ObjectMapper objectMapper;
+
+    private final IndexPlanner indexPlanner;
+
+    private final Optional<QueryResultCache<Person>> resultCache;
+
+    private final QueryMetrics queryMetrics;
+
+    private final QueryAdmission queryAdmission;
+
+    private final BsonJsonTranscoder personJsonTranscoder;
+
+    private final BsonFilterTranslator personFilterTranslator;
+
+    private final DefaultQueryDslDeserializer<Person> personDeserializer;
+
+    private final Optional<CollectionSnapshot<Person>> personSnapshot;
+
+    private final Optional<QueryCoalescer<Person>> queryCoalescer;
+
+    private final MongoMappingContext mappingContext;
+
+    @Autowired
+    public MyRestController(PersonRepository personRepository, ReactivePersonRepository reactivePersonRepository,
+                            PersonQueryService personQueryService, BatchQueryService batchQueryService,
+                            PersonBulkService personBulkService,
+                            ObjectMapper objectMapper, IndexPlanner indexPlanner,
+                            Optional<QueryResultCache<Person>> resultCache, QueryMetrics queryMetrics,
+                            QueryAdmission queryAdmission, BsonJsonTranscoder personJsonTranscoder,
+                            BsonFilterTranslator personFilterTranslator, DefaultQueryDslDeserializer<Person> personDeserializer,
+                            Optional<CollectionSnapshot<Person>> personSnapshot,
+                            Optional<QueryCoalescer<Person>> queryCoalescer, MongoMappingContext mappingContext) {
+        this.personRepository = personRepository;
+        this.reactivePersonRepository = reactivePersonRepository;
+        this.personQueryService = personQueryService;
+        this.batchQueryService = batchQueryService;
+        this.personBulkService = personBulkService;
+        this.objectMapper = objectMapper;
+        this.indexPlanner = indexPlanner;
+        this.resultCache = resultCache;
+        this.queryMetrics = queryMetrics;
+        this.queryAdmission = queryAdmission;
+        this.personJsonTranscoder = personJsonTranscoder;
+        this.personFilterTranslator = personFilterTranslator;
+        this.personDeserializer = personDeserializer;
+        this.personSnapshot = personSnapshot;
+        this.queryCoalescer = queryCoalescer;
+        this.mappingContext = mappingContext;
+    }
+
+    @PostMapping(path = "/find")
+    public Iterable<Person> findPersons(@JsonPredicate(Person.class) Predicate predicate) {
+        return findPrepared(prepare(predicate), this::findAll);
+    }
+
+    /**
+     * Find with the filter translated straight into a mongo filter, without building the queryDSL predicate : the
+     * index check and the admission are done on the filter, the snapshot, the result cache and the coalescing
+     * (which work on predicates) are not used. The predicates with other operators than $eq, $ne, $lt, $gt, $lte,
+     * $gte, $in, $nin, $and and $or go through the queryDSL find.
+     */
+    @PostMapping(path = "/find/fast")
+    public Iterable<Person> findPersonsFast(@RequestBody JsonNode jsonPredicate) {
+        Optional<Document> filter = personFilterTranslator.translate(jsonPredicate, Person.class);
+        if (!filter.isPresent()) {
+            return findPersons(personDeserializer.deserializePredicate(jsonPredicate, Person.class));
+        }
+        indexPlanner.check(filter.get());
+        long start = queryMetrics.start();
+        List<Person> persons = queryAdmission.admitFilter(filter.get(), () -> personRepository.find(filter.get()));
+        queryMetrics.executed(start, "find");
+        return persons;
+    }
+
+    /**
+     * Answer an optimized and checked predicate from the snapshot, the result cache or the specified query
+     */
+    private Iterable<Person> findPrepared(Predicate optimized, Function<Predicate, List<Person>> query) {
+        if (PredicateOptimizer.isNever(optimized)) {
+            return Collections.emptyList();
+        }
+        long start = queryMetrics.start();
+        Optional<List<Person>> local = personSnapshot.flatMap(snapshot -> snapshot.find(optimized));
+        if (local.isPresent()) {
+            queryMetrics.executed(start, "snapshot");
+            return local.get();
+        }
+        Iterable<Person> persons = resultCache.isPresent()
+                ? resultCache.get().get(optimized, predicate -> execute(predicate, query))
+                : execute(optimized, query);
+        queryMetrics.executed(start, "find");
+        return persons;
+    }
+
+    /**
+     * Pass-through find : the raw documents are written as json without building the persons, the result cache
+     * is not used. The admission permit is held until the cursor is closed.
+     */
+    @PostMapping(path = "/find", params = "raw=true", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> findPersonsRaw(@JsonPredicate(Person.class) Predicate predicate) {
+        Predicate optimized = prepare(predicate);
+        return CursorResponses.<RawBsonDocument>jsonArray(objectMapper, () -> PredicateOptimizer.isNever(optimized)
+                ? CursorResponses.<RawBsonDocument>emptyCursor()
+                : queryAdmission.admitCursor(optimized, () -> personRepository.streamRaw(optimized)), personJsonTranscoder::write);
+    }
+
+    @PostMapping(path = "/count")
+    public Map<String, Long> countPersons(@JsonPredicate(Person.class) Predicate predicate) {
+        Predicate optimized = prepare(predicate);
+        long count;
+        if (PredicateOptimizer.isNever(optimized)) {
+            count = 0;
+        } else {
+            long start = queryMetrics.start();
+            count = queryAdmission.admit(optimized,
+                    () -> optimized == null ? personRepository.count() : personRepository.count(optimized));
+            queryMetrics.executed(start, "count");
+        }
+        return Collections.singletonMap("count", count);
+    }
+
+    @PostMapping(path = "/exists")
+    public Map<String, Boolean> existsPersons(@JsonPredicate(Person.class) Predicate predicate) {
+        Predicate optimized = prepare(predicate);
+        boolean exists;
+        if (PredicateOptimizer.isNever(optimized)) {
+            exists = false;
+        } else {
+            long start = queryMetrics.start();
+            exists = queryAdmission.admit(optimized,
+                    () -> optimized == null ? personRepository.count() > 0 : personRepository.exists(optimized));
+            queryMetrics.executed(start, "exists");
+        }
+        return Collections.singletonMap("exists", exists);
+    }
+
+    @PostMapping(path = "/aggregate")
+    public List<Map<String, Object>> aggregatePersons(@RequestBody AggregateRequest request) {
+        return personQueryService.aggregate(request);
+    }
+
+    @PostMapping(path = "/query")
+    public QueryPage<Object> queryPersons(@RequestBody QueryRequest request) {
+        return personQueryService.query(request);
+    }
+
+    @PostMapping(path = "/batch")
+    public Map<String, BatchQueryResult> batchQueryPersons(@RequestBody JsonNode batch) {
+        return batchQueryService.query(batch);
+    }
+
+    /**
+     * Insert a json array of persons, the body is read incrementally
+     */
+    @PostMapping(path = "/bulk/insert")
+    public BulkWriteReport bulkInsert(InputStream body,
+                                      @RequestParam(defaultValue = "${querydsl.bulk.ordered:true}") boolean ordered) {
+        return personBulkService.insert(body, ordered);
+    }
+
+    /**
+     * Insert or replace by id a json array of persons, the body is read incrementally
+     */
+    @PostMapping(path = "/bulk/upsert")
+    public BulkWriteReport bulkUpsert(InputStream body,
+                                      @RequestParam(defaultValue = "${querydsl.bulk.ordered:true}") boolean ordered) {
+        return personBulkService.upsert(body, ordered);
+    }
+
+    /**
+     * Update the persons matching json predicates, the body is a json array of { "predicate", "set" }
+     */
+    @PostMapping(path = "/bulk/update")
+    public BulkWriteReport bulkUpdate(InputStream body,
+                                      @RequestParam(defaultValue = "${querydsl.bulk.ordered:true}") boolean ordered) {
+        return personBulkService.update(body, ordered);
+    }
+
+    @GetMapping(path = "/all")
+    public Iterable<Person> findALl(){
+        return personRepository.findAll();
+    }
+
+    /**
+     * Pass-through of all the persons, see {@link #findPersonsRaw(Predicate)}
+     */
+    @GetMapping(path = "/all", params = "raw=true", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> findAllRaw() {
+        return CursorResponses.<RawBsonDocument>jsonArray(objectMapper, () -> personRepository.streamRaw(null), personJsonTranscoder::write);
+    }
+
+    @PostMapping(path = "/find/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamPersons(@JsonPredicate(Person.class) Predicate predicate) {
+        Predicate optimized = prepare(predicate);
+        return CursorResponses.jsonArray(objectMapper, () -> stream(optimized));
+    }
+
+    @PostMapping(path = "/find/stream", produces = CursorResponses.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamPersonsNdjson(@JsonPredicate(Person.class) Predicate predicate) {
+        Predicate optimized = prepare(predicate);
+        return CursorResponses.ndjson(objectMapper, () -> stream(optimized));
+    }
+
+    /**
+     * Find on all the person partitions, merged by the order bys. The partitions which have failed or timed out
+     * are listed in the {@link #FAILED_PARTITIONS_HEADER} header.
+     */
+    @PostMapping(path = "/find/partitioned", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> findPartitioned(@RequestBody QueryRequest request) {
+        PartitionedResult<Person> result = personQueryService.findPartitioned(request);
+        return withFailedPartitions(CursorResponses.jsonArray(objectMapper, result::getCursor), result);
+    }
+
+    @PostMapping(path = "/find/partitioned", produces = CursorResponses.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> findPartitionedNdjson(@RequestBody QueryRequest request) {
+        PartitionedResult<Person> result = personQueryService.findPartitioned(request);
+        return withFailedPartitions(CursorResponses.ndjson(objectMapper, result::getCursor), result);
+    }
+
+    /**
+     * Non blocking find : no thread waits on mongo, with application/stream+json the persons are written as they
+     * are fetched and the cursor is only read as fast as the client consumes. The admission permit is taken on
+     * subscription and released when the flux completes, fails or is cancelled.
+     */
+    @PostMapping(path = "/find/reactive", produces = {MediaType.APPLICATION_STREAM_JSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public Flux<Person> findPersonsReactive(@JsonPredicate(Person.class) Predicate predicate) {
+        Predicate optimized = prepare(predicate);
+        if (PredicateOptimizer.isNever(optimized)) {
+            return Flux.empty();
+        }
+        return Flux.using(() -> queryAdmission.acquire(optimized), permit -> reactivePersonRepository.findAll(optimized),
+                QueryAdmission.Permit::close);
+    }
+
+    @GetMapping(path = "/all/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAll() {
+        return CursorResponses.jsonArray(objectMapper, personRepository::streamAll);
+    }
+
+    @GetMapping(path = "/all/stream", produces = CursorResponses.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllNdjson() {
+        return CursorResponses.ndjson(objectMapper, personRepository::streamAll);
+    }
+
+    /**
+     * The identical queries running at the same time share one execution, which is the only one admitted
+     */
+    private List<Person> execute(Predicate optimized, Function<Predicate, List<Person>> query) {
+        return queryCoalescer.isPresent()
+                ? queryCoalescer.get().execute(optimized, predicate -> queryAdmission.admit(predicate, () -> query.apply(predicate)))
+                : queryAdmission.admit(optimized, () -> query.apply(optimized));
+    }
+
+    private List<Person> findAll(Predicate optimized) {
+        List<Person> persons = new ArrayList<>();
+        (optimized == null ? personRepository.findAll() : personRepository.findAll(optimized)).forEach(persons::add);
+        return persons;
+    }
+
+    /**
+     * Simplify the predicate and check it against the indexes, before the response is started
+     */
+    private Predicate prepare(Predicate predicate) {
+        Predicate optimized = PredicateOptimizer.optimize(predicate, mappingContext);
+        indexPlanner.check(optimized);
+        return optimized;
+    }
+
+    private static ResponseEntity<StreamingResponseBody> withFailedPartitions(ResponseEntity<StreamingResponseBody> response,
+                                                                             PartitionedResult<?> result) {
+        if (result.getFailedPartitions().isEmpty()) {
+            return response;
+        }
+        return ResponseEntity.status(response.getStatusCode())
+                .headers(response.getHeaders())
+                .header(FAILED_PARTITIONS_HEADER, String.join(",", result.getFailedPartitions()))
+                .body(response.getBody());
+    }
+
+    private CloseableIterator<Person> stream(Predicate optimized) {
+        if (PredicateOptimizer.isNever(optimized)) {
+            return CursorResponses.emptyCursor();
+        }
+        return queryAdmission.admitCursor(optimized, () -> personRepository.stream(optimized));
+    }
+}
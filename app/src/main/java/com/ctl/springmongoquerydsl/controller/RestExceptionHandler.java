@@ -0,0 +1,38 @@
+package com.ctl.springmongoquerydsl.controller;
+
+import com.ctl.springmongoquerydsl.jackson.DefaultQueryDslDeserializer.DSLJsonDeserializerException;
+import com.ctl.springmongoquerydsl.query.InvalidQueryException;
+import com.ctl.springmongoquerydsl.query.QueryRejectedException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Map the invalid query errors to a 400 response, the rejected queries to a 503 response
+ */
+@RestControllerAdvice
+public class RestExceptionHandler {
+
+    @ExceptionHandler(DSLJsonDeserializerException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public Map<String, String> handleDeserializerException(DSLJsonDeserializerException e) {
+        String message = e.getCause() == null ? e.getMessage() : e.getMessage() + " : " + e.getCause().getMessage();
+        return Collections.singletonMap("error", message);
+    }
+
+    @ExceptionHandler(InvalidQueryException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public Map<String, String> handleInvalidQueryException(InvalidQueryException e) {
+        return Collections.singletonMap("error", e.getMessage());
+    }
+
+    @ExceptionHandler(QueryRejectedException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public Map<String, String> handleQueryRejectedException(QueryRejectedException e) {
+        return Collections.singletonMap("error", e.getMessage());
+    }
+}
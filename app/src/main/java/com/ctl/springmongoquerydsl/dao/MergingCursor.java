@@ -0,0 +1,147 @@
+package com.ctl.springmongoquerydsl.dao;
+
+import com.ctl.springmongoquerydsl.utils.MyPathUtils;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.Path;
+import org.springframework.beans.DirectFieldAccessor;
+import org.springframework.data.util.CloseableIterator;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * K-way merge of cursors sorted by the same order bys : the next document is the smallest head of the cursors,
+ * a cursor is only read when its head has been returned, and the reads stop at the limit.
+ * <p>
+ * Like mongo, null values are sorted first in ascending order.
+ */
+public class MergingCursor<T> implements CloseableIterator<T> {
+
+    private final List<? extends CloseableIterator<T>> cursors;
+
+    /**
+     * the property path of each order by
+     */
+    private final String[] properties;
+
+    private final boolean[] ascending;
+
+    private final PriorityQueue<Head<T>> heads;
+
+    private long remaining;
+
+    /**
+     * Default constructor of {@link MergingCursor}, the first document of each cursor is read. If a read fails, all
+     * the cursors are closed before the error is thrown
+     *
+     * @param cursors  the cursors, sorted by the order bys
+     * @param orderBys the order bys
+     * @param limit    the maximum number of documents
+     */
+    public MergingCursor(List<? extends CloseableIterator<T>> cursors, List<OrderSpecifier<?>> orderBys, long limit) {
+        this.cursors = cursors;
+        this.properties = new String[orderBys.size()];
+        this.ascending = new boolean[orderBys.size()];
+        for (int i = 0; i < orderBys.size(); i++) {
+            properties[i] = MyPathUtils.toPropertyPath((Path<?>) orderBys.get(i).getTarget());
+            ascending[i] = orderBys.get(i).isAscending();
+        }
+        this.heads = new PriorityQueue<>(Math.max(1, cursors.size()), this::compare);
+        this.remaining = limit;
+        try {
+            for (CloseableIterator<T> cursor : cursors) {
+                advance(cursor);
+            }
+        } catch (RuntimeException | Error e) {
+            // the caller gets no merging cursor to close
+            try {
+                close();
+            } catch (RuntimeException closeError) {
+                e.addSuppressed(closeError);
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        return remaining > 0 && !heads.isEmpty();
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Head<T> head = heads.poll();
+        if (--remaining > 0) {
+            advance(head.cursor);
+        }
+        return head.document;
+    }
+
+    @Override
+    public void close() {
+        RuntimeException error = null;
+        for (CloseableIterator<T> cursor : cursors) {
+            try {
+                cursor.close();
+            } catch (RuntimeException e) {
+                if (error == null) {
+                    error = e;
+                } else {
+                    error.addSuppressed(e);
+                }
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    private void advance(CloseableIterator<T> cursor) {
+        if (cursor.hasNext()) {
+            T document = cursor.next();
+            DirectFieldAccessor accessor = new DirectFieldAccessor(document);
+            Object[] keys = new Object[properties.length];
+            for (int i = 0; i < properties.length; i++) {
+                keys[i] = accessor.getPropertyValue(properties[i]);
+            }
+            heads.add(new Head<>(document, keys, cursor));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private int compare(Head<T> left, Head<T> right) {
+        for (int i = 0; i < properties.length; i++) {
+            Object leftKey = left.keys[i];
+            Object rightKey = right.keys[i];
+            int result;
+            if (leftKey == null || rightKey == null) {
+                result = leftKey == null ? (rightKey == null ? 0 : -1) : 1;
+            } else {
+                result = ((Comparable<Object>) leftKey).compareTo(rightKey);
+            }
+            if (result != 0) {
+                return ascending[i] ? result : -result;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * The current document of a cursor, with its order by values
+     */
+    private static class Head<T> {
+        private final T document;
+        private final Object[] keys;
+        private final CloseableIterator<T> cursor;
+
+        private Head(T document, Object[] keys, CloseableIterator<T> cursor) {
+            this.document = document;
+            this.keys = keys;
+            this.cursor = cursor;
+        }
+    }
+}
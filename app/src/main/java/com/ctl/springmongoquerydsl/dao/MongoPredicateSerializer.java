@@ -0,0 +1,155 @@
+package com.ctl.springmongoquerydsl.dao;
+
+import com.ctl.springmongoquerydsl.query.InvalidQueryException;
+import com.mongodb.BasicDBList;
+import com.mongodb.DBObject;
+import com.mongodb.DBRef;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.PathMetadata;
+import com.querydsl.core.types.PathType;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.mongodb.MongodbSerializer;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.mapping.context.MappingContext;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import org.springframework.data.mongodb.core.query.BasicQuery;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Serialize a queryDSL predicate into a mongo filter usable with the {@link org.springframework.data.mongodb.core.MongoTemplate}.
+ * <p>
+ * The keys are the property paths of the entity (the root variable is dropped), the field names and the id
+ * conversion are left to the query mapper of the template. The values of the DBRef properties are written as
+ * DBRef, from the referenced entity or from its id (ex : person.friend.id.eq(id)).
+ */
+public class MongoPredicateSerializer extends MongodbSerializer {
+
+    private final MappingContext<? extends MongoPersistentEntity<?>, MongoPersistentProperty> mappingContext;
+
+    /**
+     * whether each property path is a DBRef
+     */
+    private final ConcurrentMap<Path<?>, Boolean> references = new ConcurrentHashMap<>();
+
+    /**
+     * Default constructor of {@link MongoPredicateSerializer}
+     *
+     * @param mappingContext the mapping context, to find the DBRef properties and the collections they refer to
+     */
+    public MongoPredicateSerializer(MappingContext<? extends MongoPersistentEntity<?>, MongoPersistentProperty> mappingContext) {
+        this.mappingContext = mappingContext;
+    }
+
+    /**
+     * Create the mongo filter of the specified predicate
+     *
+     * @param predicate the queryDSL predicate, null for no filter
+     * @return the mongo filter
+     */
+    public Document toDocument(Predicate predicate) {
+        if (predicate == null) {
+            return new Document();
+        }
+        Object filter = handle(predicate);
+        if (!(filter instanceof DBObject)) {
+            throw new InvalidQueryException("The predicate can not be used as a mongo filter : " + predicate);
+        }
+        return (Document) toDocumentValue(filter);
+    }
+
+    /**
+     * Create the query of the specified predicate
+     *
+     * @param predicate the queryDSL predicate, null for no filter
+     * @return the query
+     */
+    public Query toQuery(Predicate predicate) {
+        return new BasicQuery(toDocument(predicate));
+    }
+
+    /**
+     * Convert the legacy DBObject values into their Document / List equivalent
+     */
+    private static Object toDocumentValue(Object value) {
+        if (value instanceof BasicDBList || value instanceof Object[]) {
+            Iterable<?> elements = value instanceof Object[] ? Arrays.asList((Object[]) value) : (BasicDBList) value;
+            List<Object> list = new ArrayList<>();
+            for (Object element : elements) {
+                list.add(toDocumentValue(element));
+            }
+            return list;
+        } else if (value instanceof DBObject) {
+            DBObject dbObject = (DBObject) value;
+            Document document = new Document();
+            for (String key : dbObject.keySet()) {
+                document.put(key, toDocumentValue(dbObject.get(key)));
+            }
+            return document;
+        }
+        return value;
+    }
+
+    @Override
+    protected boolean isReference(Path<?> arg) {
+        return references.computeIfAbsent(arg, path -> {
+            MongoPersistentProperty property = getProperty(path);
+            return property != null && property.isDbReference();
+        });
+    }
+
+    /**
+     * Only the ids of the references, the other ids are converted by the query mapper
+     */
+    @Override
+    protected boolean isId(Path<?> arg) {
+        Path<?> parent = arg.getMetadata().getParent();
+        if (parent == null || !isReference(parent)) {
+            return false;
+        }
+        MongoPersistentProperty property = getProperty(arg);
+        return property != null && property.isIdProperty();
+    }
+
+    /**
+     * The id of a reference is matched on the DBRef itself
+     */
+    @Override
+    protected String getKeyForPath(Path<?> expr, PathMetadata metadata) {
+        return isId(expr) ? null : super.getKeyForPath(expr, metadata);
+    }
+
+    @Override
+    protected DBRef asReference(Object constant) {
+        MongoPersistentEntity<?> entity = mappingContext.getPersistentEntity(constant.getClass());
+        if (entity == null || !entity.hasIdProperty()) {
+            throw new InvalidQueryException("The value " + constant + " is not an entity, it can not be used as a DBRef");
+        }
+        return asReferenceKey(constant.getClass(), entity.getIdentifierAccessor(constant).getIdentifier());
+    }
+
+    @Override
+    protected DBRef asReferenceKey(Class<?> entity, Object id) {
+        Object key = id instanceof String && ObjectId.isValid((String) id) ? new ObjectId((String) id) : id;
+        return new DBRef(mappingContext.getRequiredPersistentEntity(entity).getCollection(), key);
+    }
+
+    /**
+     * @return the persistent property of the path, null if the path is not a property of an entity
+     */
+    private MongoPersistentProperty getProperty(Path<?> path) {
+        PathMetadata metadata = path.getMetadata();
+        if (metadata.getParent() == null || metadata.getPathType() != PathType.PROPERTY) {
+            return null;
+        }
+        MongoPersistentEntity<?> entity = mappingContext.getPersistentEntity(metadata.getParent().getType());
+        return entity == null ? null : entity.getPersistentProperty(metadata.getName());
+    }
+}
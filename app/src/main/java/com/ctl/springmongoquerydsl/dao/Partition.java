@@ -0,0 +1,26 @@
+package com.ctl.springmongoquerydsl.dao;
+
+import lombok.Value;
+import org.springframework.data.mongodb.core.MongoOperations;
+
+/**
+ * A collection holding a part of the documents, all the partitions share the schema of the entity
+ */
+@Value
+public class Partition {
+
+    /**
+     * the name of the partition, reported when it fails
+     */
+    String name;
+
+    /**
+     * the template of the database of the partition
+     */
+    MongoOperations mongoOperations;
+
+    /**
+     * the collection of the partition
+     */
+    String collection;
+}
@@ -0,0 +1,138 @@
+package com.ctl.springmongoquerydsl.dao;
+
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.Predicate;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mapping.context.MappingContext;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.querydsl.QSort;
+import org.springframework.data.util.CloseableIterator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Run a predicate on all the partitions of an entity : the cursors are opened in parallel, each partition
+ * sorts and limits its documents, and the cursors are merged by the order bys (see {@link MergingCursor}).
+ * <p>
+ * A partition which has not returned its first batch within the timeout is left out of the result, and its
+ * query is bounded on the server by the same time.
+ */
+@Slf4j
+public class PartitionedQueryExecutor<T> {
+
+    private final MongoPredicateSerializer serializer;
+
+    private final Class<T> entityClass;
+
+    private final List<Partition> partitions;
+
+    private final ExecutorService executor;
+
+    private final long timeoutMillis;
+
+    /**
+     * Default constructor of {@link PartitionedQueryExecutor}
+     *
+     * @param entityClass    the entity of the partitions
+     * @param mappingContext the mapping context of the entity
+     * @param partitions     the partitions
+     * @param executor       the executor opening the cursors
+     * @param timeoutMillis  the time given to each partition
+     */
+    public PartitionedQueryExecutor(Class<T> entityClass, MappingContext<? extends MongoPersistentEntity<?>, MongoPersistentProperty> mappingContext,
+                                    List<Partition> partitions, ExecutorService executor, long timeoutMillis) {
+        this.serializer = new MongoPredicateSerializer(mappingContext);
+        this.entityClass = entityClass;
+        this.partitions = Collections.unmodifiableList(new ArrayList<>(partitions));
+        this.executor = executor;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Open the cursors of all the partitions and merge them
+     *
+     * @param predicate the queryDSL predicate, null for all the documents
+     * @param orderBys  the order bys, they should end with a unique path
+     * @param limit     the maximum number of documents of the merged cursor
+     * @return the merged cursor and the failed partitions
+     */
+    public PartitionedResult<T> stream(Predicate predicate, List<OrderSpecifier<?>> orderBys, int limit) {
+        Map<Partition, CompletableFuture<CloseableIterator<T>>> futures = new LinkedHashMap<>();
+        List<String> failedPartitions = new ArrayList<>();
+        for (Partition partition : partitions) {
+            Query query = serializer.toQuery(predicate)
+                    .with(new QSort(orderBys))
+                    .limit(limit)
+                    .maxTimeMsec(timeoutMillis);
+            try {
+                futures.put(partition, CompletableFuture.supplyAsync(() -> open(partition, query), executor));
+            } catch (RejectedExecutionException e) {
+                log.warn("partition {} skipped, too many queries are running", partition.getName());
+                failedPartitions.add(partition.getName());
+            }
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        List<CloseableIterator<T>> cursors = new ArrayList<>();
+        for (Entry<Partition, CompletableFuture<CloseableIterator<T>>> future : futures.entrySet()) {
+            CloseableIterator<T> cursor = await(future.getKey(), future.getValue(), deadline);
+            if (cursor == null) {
+                failedPartitions.add(future.getKey().getName());
+            } else {
+                cursors.add(cursor);
+            }
+        }
+        return new PartitionedResult<>(new MergingCursor<>(cursors, orderBys, limit), failedPartitions);
+    }
+
+    public List<Partition> getPartitions() {
+        return partitions;
+    }
+
+    /**
+     * Open the cursor of a partition, with its first batch
+     */
+    private CloseableIterator<T> open(Partition partition, Query query) {
+        CloseableIterator<T> cursor = partition.getMongoOperations().stream(query, entityClass, partition.getCollection());
+        try {
+            cursor.hasNext();
+            return cursor;
+        } catch (RuntimeException e) {
+            cursor.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Wait for the cursor of a partition
+     *
+     * @return the cursor, null if the partition has failed or timed out
+     */
+    private CloseableIterator<T> await(Partition partition, CompletableFuture<CloseableIterator<T>> future, long deadline) {
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            log.warn("partition {} has failed", partition.getName(), e.getCause());
+        } catch (TimeoutException e) {
+            log.warn("partition {} has timed out after {} ms", partition.getName(), timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // a cursor opened too late is closed right away
+        future.thenAccept(CloseableIterator::close);
+        return null;
+    }
+}
@@ -0,0 +1,25 @@
+package com.ctl.springmongoquerydsl.dao;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.data.util.CloseableIterator;
+
+import java.util.List;
+
+/**
+ * The merged cursor of a partitioned query, and the partitions left out of it
+ */
+@Getter
+@AllArgsConstructor
+public class PartitionedResult<T> {
+
+    /**
+     * the merged documents, it has to be closed
+     */
+    private final CloseableIterator<T> cursor;
+
+    /**
+     * the names of the partitions which have failed or timed out
+     */
+    private final List<String> failedPartitions;
+}
@@ -0,0 +1,34 @@
+package com.ctl.springmongoquerydsl.dao;
+
+import com.ctl.springmongoquerydsl.model.Person;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+
+/**
+ * Invalidate the cached person results when a person is inserted, saved or deleted through the template or the
+ * repositories
+ */
+public class PersonCacheInvalidationListener extends AbstractMongoEventListener<Person> {
+
+    private final QueryResultCache<Person> resultCache;
+
+    /**
+     * Default constructor of {@link PersonCacheInvalidationListener}
+     *
+     * @param resultCache the cache of the person results
+     */
+    public PersonCacheInvalidationListener(QueryResultCache<Person> resultCache) {
+        this.resultCache = resultCache;
+    }
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<Person> event) {
+        resultCache.invalidateAll();
+    }
+
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<Person> event) {
+        resultCache.invalidateAll();
+    }
+}
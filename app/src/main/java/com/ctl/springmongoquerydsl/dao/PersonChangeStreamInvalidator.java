@@ -0,0 +1,62 @@
+package com.ctl.springmongoquerydsl.dao;
+
+import com.ctl.springmongoquerydsl.model.Person;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+
+/**
+ * Invalidate the cached person results on each event of the mongo change stream of the collection, to see the
+ * writes done by the other instances or applications.
+ * <p>
+ * The change streams need a replica set (mongo 3.6+), when they are not available the error is logged and the
+ * cache only relies on the local writes.
+ */
+@Slf4j
+public class PersonChangeStreamInvalidator {
+
+    private final ReactiveMongoOperations mongoOperations;
+
+    private final QueryResultCache<Person> resultCache;
+
+    /**
+     * the name of the person collection
+     */
+    private final String collectionName;
+
+    private Disposable subscription;
+
+    /**
+     * Default constructor of {@link PersonChangeStreamInvalidator}
+     *
+     * @param mongoOperations the reactive mongo operations
+     * @param mappingContext  the mapping context, to get the name of the person collection
+     * @param resultCache     the cache of the person results
+     */
+    public PersonChangeStreamInvalidator(ReactiveMongoOperations mongoOperations, MongoMappingContext mappingContext,
+                                         QueryResultCache<Person> resultCache) {
+        this.mongoOperations = mongoOperations;
+        this.collectionName = mappingContext.getRequiredPersistentEntity(Person.class).getCollection();
+        this.resultCache = resultCache;
+    }
+
+    /**
+     * Start to watch the changes of the collection
+     */
+    public void start() {
+        subscription = Flux.from(mongoOperations.getCollection(collectionName).watch())
+                .subscribe(change -> resultCache.invalidateAll(),
+                        error -> log.warn("The change stream of the persons has stopped, only the local writes invalidate the cache", error));
+    }
+
+    /**
+     * Stop to watch the changes
+     */
+    public void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+}
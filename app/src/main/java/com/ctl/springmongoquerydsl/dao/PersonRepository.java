@@ -4,5 +4,5 @@ import com.ctl.springmongoquerydsl.model.Person;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.querydsl.QuerydslPredicateExecutor;
 
-public interface PersonRepository extends MongoRepository<Person, String>, QuerydslPredicateExecutor<Person> {
+public interface PersonRepository extends MongoRepository<Person, String>, QuerydslPredicateExecutor<Person>, PersonRepositoryCustom {
 }
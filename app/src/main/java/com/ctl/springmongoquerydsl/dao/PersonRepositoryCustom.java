@@ -0,0 +1,83 @@
+package com.ctl.springmongoquerydsl.dao;
+
+import com.ctl.springmongoquerydsl.model.Person;
+import com.querydsl.core.types.Predicate;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.aggregation.GroupOperation;
+import org.springframework.data.util.CloseableIterator;
+
+import java.util.List;
+
+/**
+ * Custom queries of the {@link PersonRepository}
+ */
+public interface PersonRepositoryCustom {
+
+    /**
+     * Open a cursor on the persons matching the predicate, the documents are fetched while iterating.
+     * The iterator has to be closed.
+     *
+     * @param predicate the queryDSL predicate
+     * @return the cursor
+     */
+    CloseableIterator<Person> stream(Predicate predicate);
+
+    /**
+     * Open a cursor on the raw documents of the persons matching the predicate, they are not mapped to
+     * {@link Person}. The iterator has to be closed.
+     *
+     * @param predicate the queryDSL predicate, null for all the persons
+     * @return the cursor
+     */
+    CloseableIterator<RawBsonDocument> streamRaw(Predicate predicate);
+
+    /**
+     * Find the persons matching a mongo filter
+     *
+     * @param filter the mongo filter keyed by property path, mapped to the mongo fields like a query
+     * @return the persons
+     */
+    List<Person> find(Document filter);
+
+    /**
+     * Open a cursor on all the persons. The iterator has to be closed.
+     *
+     * @return the cursor
+     */
+    CloseableIterator<Person> streamAll();
+
+    /**
+     * Find a range of the persons matching the predicate
+     *
+     * @param predicate the queryDSL predicate, null for all the persons
+     * @param sort      the sort of the persons
+     * @param offset    the number of persons to skip
+     * @param limit     the maximum number of persons
+     * @return the persons
+     */
+    List<Person> findRange(Predicate predicate, Sort sort, long offset, int limit);
+
+    /**
+     * Find the projected fields of a range of the persons matching the predicate. The documents are not mapped to
+     * {@link Person} : they only have the projected fields, keyed by property name, the id is a string
+     *
+     * @param predicate the queryDSL predicate, null for all the persons
+     * @param sort      the sort of the persons
+     * @param fields    the mongo projection keyed by property path
+     * @param offset    the number of persons to skip
+     * @param limit     the maximum number of persons
+     * @return the projected documents
+     */
+    List<Document> findProjected(Predicate predicate, Sort sort, Document fields, long offset, int limit);
+
+    /**
+     * Group the persons matching the predicate
+     *
+     * @param predicate the queryDSL predicate, null for all the persons
+     * @param group     the group stage, on the property paths
+     * @return the raw groups
+     */
+    List<Document> aggregate(Predicate predicate, GroupOperation group);
+}
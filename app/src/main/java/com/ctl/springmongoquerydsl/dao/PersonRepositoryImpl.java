@@ -0,0 +1,172 @@
+package com.ctl.springmongoquerydsl.dao;
+
+import com.ctl.springmongoquerydsl.model.Person;
+import com.querydsl.core.types.Predicate;
+import com.mongodb.client.MongoCursor;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.GroupOperation;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.data.mapping.PropertyHandler;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import org.springframework.data.mongodb.core.query.CriteriaDefinition;
+import org.springframework.data.mongodb.core.query.BasicQuery;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.util.CloseableIterator;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Implementation of {@link PersonRepositoryCustom}, based on the mongo template
+ */
+public class PersonRepositoryImpl implements PersonRepositoryCustom {
+
+    private final MongoOperations mongoOperations;
+
+    private final MongoPredicateSerializer serializer;
+
+    /**
+     * maps the property paths of the raw queries to the mongo fields
+     */
+    private final QueryMapper queryMapper;
+
+    private final MongoPersistentEntity<?> entity;
+
+    /**
+     * the top level properties of a person, by mongo field name
+     */
+    private final Map<String, MongoPersistentProperty> properties = new HashMap<>();
+
+    @Autowired
+    public PersonRepositoryImpl(MongoOperations mongoOperations) {
+        this.mongoOperations = mongoOperations;
+        this.queryMapper = new QueryMapper(mongoOperations.getConverter());
+        this.serializer = new MongoPredicateSerializer(mongoOperations.getConverter().getMappingContext());
+        this.entity = mongoOperations.getConverter().getMappingContext().getRequiredPersistentEntity(Person.class);
+        entity.doWithProperties((PropertyHandler<MongoPersistentProperty>) property -> properties.put(property.getFieldName(), property));
+    }
+
+    @Override
+    public CloseableIterator<Person> stream(Predicate predicate) {
+        return mongoOperations.stream(serializer.toQuery(predicate), Person.class);
+    }
+
+    @Override
+    public CloseableIterator<RawBsonDocument> streamRaw(Predicate predicate) {
+        Document filter = queryMapper.getMappedObject(serializer.toDocument(predicate),
+                mongoOperations.getConverter().getMappingContext().getPersistentEntity(Person.class));
+        MongoCursor<RawBsonDocument> cursor = mongoOperations.getCollection(mongoOperations.getCollectionName(Person.class))
+                .withDocumentClass(RawBsonDocument.class)
+                .find(filter)
+                .iterator();
+        return new CloseableIterator<RawBsonDocument>() {
+            @Override
+            public boolean hasNext() {
+                return cursor.hasNext();
+            }
+
+            @Override
+            public RawBsonDocument next() {
+                return cursor.next();
+            }
+
+            @Override
+            public void close() {
+                cursor.close();
+            }
+        };
+    }
+
+    @Override
+    public List<Person> find(Document filter) {
+        return mongoOperations.find(new BasicQuery(filter), Person.class);
+    }
+
+    @Override
+    public CloseableIterator<Person> streamAll() {
+        return mongoOperations.stream(new Query(), Person.class);
+    }
+
+    @Override
+    public List<Person> findRange(Predicate predicate, Sort sort, long offset, int limit) {
+        Query query = new BasicQuery(serializer.toDocument(predicate))
+                .with(sort)
+                .skip(offset)
+                .limit(limit);
+        return mongoOperations.find(query, Person.class);
+    }
+
+    @Override
+    public List<Document> findProjected(Predicate predicate, Sort sort, Document fields, long offset, int limit) {
+        Document sortDocument = new Document();
+        sort.forEach(order -> sortDocument.put(order.getProperty(), order.isAscending() ? 1 : -1));
+        List<Document> documents = new ArrayList<>();
+        try (MongoCursor<Document> cursor = mongoOperations.getCollection(entity.getCollection())
+                .find(queryMapper.getMappedObject(serializer.toDocument(predicate), entity))
+                .projection(queryMapper.getMappedFields(fields, entity))
+                .sort(queryMapper.getMappedSort(sortDocument, entity))
+                .skip((int) offset)
+                .limit(limit)
+                .iterator()) {
+            while (cursor.hasNext()) {
+                documents.add(toProperties(cursor.next()));
+            }
+        }
+        return documents;
+    }
+
+    /**
+     * Key the top level fields of a raw document by property name, the simple values are converted to the property
+     * type (ex : the ObjectId of a String id)
+     */
+    private Document toProperties(Document document) {
+        ConversionService conversionService = mongoOperations.getConverter().getConversionService();
+        Document result = new Document();
+        for (Map.Entry<String, Object> field : document.entrySet()) {
+            MongoPersistentProperty property = properties.get(field.getKey());
+            if (property == null) {
+                continue;
+            }
+            Object value = field.getValue();
+            if (value != null && !property.isEntity() && !property.isCollectionLike() && !property.isMap()
+                    && !property.getType().isInstance(value) && conversionService.canConvert(value.getClass(), property.getType())) {
+                value = conversionService.convert(value, property.getType());
+            }
+            result.put(property.getName(), value);
+        }
+        return result;
+    }
+
+    @Override
+    public List<Document> aggregate(Predicate predicate, GroupOperation group) {
+        List<AggregationOperation> operations = new ArrayList<>();
+        if (predicate != null) {
+            Document filter = serializer.toDocument(predicate);
+            // the filter is mapped to the mongo fields by the typed aggregation, like a query
+            operations.add(Aggregation.match(new CriteriaDefinition() {
+                @Override
+                public Document getCriteriaObject() {
+                    return filter;
+                }
+
+                @Override
+                public String getKey() {
+                    return null;
+                }
+            }));
+        }
+        operations.add(group);
+        return mongoOperations.aggregate(Aggregation.newAggregation(Person.class, operations), Document.class)
+                .getMappedResults();
+    }
+}
@@ -0,0 +1,137 @@
+package com.ctl.springmongoquerydsl.dao;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.querydsl.core.types.Predicate;
+import lombok.Value;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Bounded cache of the results of the queries, keyed by the optimized predicate (see
+ * {@link com.ctl.springmongoquerydsl.query.PredicateOptimizer}).
+ * <p>
+ * The entries expire after a fixed time and the least recently used ones are evicted when the cache is full :
+ * either the maximum number of entries or the estimated maximum number of bytes is reached. All the entries are
+ * invalidated when a document of the collection is written.
+ *
+ * @param <T> the document type
+ */
+public class QueryResultCache<T> {
+
+    private final Cache<CacheKey, CachedResult<T>> results;
+
+    /**
+     * the estimated size of a document, in bytes
+     */
+    private final ToIntFunction<T> sizeEstimator;
+
+    /**
+     * the estimated size of the cached documents, in bytes
+     */
+    private final AtomicLong estimatedBytes = new AtomicLong();
+
+    /**
+     * incremented by each invalidation, a result loaded before an invalidation is not cached
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Default constructor of {@link QueryResultCache}
+     *
+     * @param maximumSize   the maximum number of results kept in the cache
+     * @param maximumBytes  the maximum estimated size of the cached documents
+     * @param ttlSeconds    the time after which a result expires
+     * @param sizeEstimator the estimated size of a document, in bytes
+     */
+    public QueryResultCache(long maximumSize, long maximumBytes, long ttlSeconds, ToIntFunction<T> sizeEstimator) {
+        this.sizeEstimator = sizeEstimator;
+        // a single weight bounds both : each entry weighs at least its share of the bytes, so that no more than
+        // maximumSize entries fit. A single segment keeps the bounds exact, the writes are rare.
+        long minimumWeight = Math.max(1, maximumBytes / maximumSize);
+        this.results = CacheBuilder.newBuilder()
+                .concurrencyLevel(1)
+                .maximumWeight(maximumBytes)
+                .weigher((CacheKey key, CachedResult<T> result) -> (int) Math.min(Integer.MAX_VALUE, Math.max(minimumWeight, result.getBytes())))
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .removalListener(notification -> estimatedBytes.addAndGet(-notification.getValue().getBytes()))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Get the cached result of the specified predicate, or load and cache it
+     *
+     * @param predicate the optimized predicate, null for all the documents
+     * @param loader    the query of the documents
+     * @return the documents, they must not be modified
+     */
+    public List<T> get(Predicate predicate, Function<Predicate, List<T>> loader) {
+        CacheKey key = new CacheKey(predicate);
+        CachedResult<T> result = results.getIfPresent(key);
+        if (result != null) {
+            return result.getDocuments();
+        }
+        long loadGeneration = generation.get();
+        List<T> documents = Collections.unmodifiableList(loader.apply(predicate));
+        long bytes = 0;
+        for (T document : documents) {
+            bytes += sizeEstimator.applyAsInt(document);
+        }
+        if (generation.get() == loadGeneration) {
+            estimatedBytes.addAndGet(bytes);
+            results.put(key, new CachedResult<>(documents, bytes));
+            if (generation.get() != loadGeneration) {
+                // a write happened meanwhile
+                results.invalidate(key);
+            }
+        }
+        return documents;
+    }
+
+    /**
+     * Drop all the cached results, after a write on the collection
+     */
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        results.invalidateAll();
+    }
+
+    /**
+     * @return the hit / miss / eviction counters of the cache
+     */
+    public CacheStats getStats() {
+        return results.stats();
+    }
+
+    /**
+     * @return the estimated size of the cached documents, in bytes
+     */
+    public long getEstimatedBytes() {
+        return estimatedBytes.get();
+    }
+
+    /**
+     * @return the number of results in the cache
+     */
+    public long size() {
+        return results.size();
+    }
+
+    @Value
+    private static class CacheKey {
+        Predicate predicate;
+    }
+
+    @Value
+    private static class CachedResult<T> {
+        List<T> documents;
+        long bytes;
+    }
+}
@@ -0,0 +1,10 @@
+package com.ctl.springmongoquerydsl.dao;
+
+import com.ctl.springmongoquerydsl.model.Person;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+
+/**
+ * Non blocking access to the persons
+ */
+public interface ReactivePersonRepository extends ReactiveMongoRepository<Person, String>, ReactivePersonRepositoryCustom {
+}
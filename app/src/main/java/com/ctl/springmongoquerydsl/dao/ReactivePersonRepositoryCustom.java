@@ -0,0 +1,20 @@
+package com.ctl.springmongoquerydsl.dao;
+
+import com.ctl.springmongoquerydsl.model.Person;
+import com.querydsl.core.types.Predicate;
+import reactor.core.publisher.Flux;
+
+/**
+ * Custom queries of the {@link ReactivePersonRepository}
+ */
+public interface ReactivePersonRepositoryCustom {
+
+    /**
+     * Find the persons matching the predicate. The documents are fetched from the cursor as they are requested
+     * by the subscriber.
+     *
+     * @param predicate the queryDSL predicate, null for all the persons
+     * @return the persons
+     */
+    Flux<Person> findAll(Predicate predicate);
+}
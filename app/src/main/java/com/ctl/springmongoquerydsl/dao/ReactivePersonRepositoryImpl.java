@@ -0,0 +1,28 @@
+package com.ctl.springmongoquerydsl.dao;
+
+import com.ctl.springmongoquerydsl.model.Person;
+import com.querydsl.core.types.Predicate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import reactor.core.publisher.Flux;
+
+/**
+ * Implementation of {@link ReactivePersonRepositoryCustom}, based on the reactive mongo template
+ */
+public class ReactivePersonRepositoryImpl implements ReactivePersonRepositoryCustom {
+
+    private final ReactiveMongoOperations mongoOperations;
+
+    private final MongoPredicateSerializer serializer;
+
+    @Autowired
+    public ReactivePersonRepositoryImpl(ReactiveMongoOperations mongoOperations) {
+        this.mongoOperations = mongoOperations;
+        this.serializer = new MongoPredicateSerializer(mongoOperations.getConverter().getMappingContext());
+    }
+
+    @Override
+    public Flux<Person> findAll(Predicate predicate) {
+        return mongoOperations.find(serializer.toQuery(predicate), Person.class);
+    }
+}
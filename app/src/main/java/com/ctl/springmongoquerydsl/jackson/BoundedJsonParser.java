@@ -0,0 +1,120 @@
+package com.ctl.springmongoquerydsl.jackson;
+
+import com.ctl.springmongoquerydsl.query.InvalidQueryException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.util.JsonParserDelegate;
+
+import java.io.IOException;
+
+/**
+ * Parser counting the tokens of a json predicate read as a tree, so that a predicate over the
+ * {@link QueryComplexityLimits} is rejected while it is read instead of once the whole tree is built.
+ * <p>
+ * The bounds are derived from the limits : a predicate level is an object and its $and / $or array, a condition is
+ * at most a field and its operation, a $in is one array. The exact limits are still checked on the tree.
+ */
+class BoundedJsonParser extends JsonParserDelegate {
+
+    private final QueryComplexityLimits limits;
+
+    private final long maxJsonDepth;
+    private final long maxFields;
+    private final long maxArraySize;
+
+    private int depth;
+    private long fields;
+    /**
+     * the number of elements of the open arrays, -1 for the open objects
+     */
+    private long[] sizes = new long[8];
+
+    /**
+     * Default constructor of {@link BoundedJsonParser}
+     *
+     * @param parser the parser of the predicate, before its first token or on its root object
+     * @param limits the limits of the predicate
+     */
+    BoundedJsonParser(JsonParser parser, QueryComplexityLimits limits) {
+        super(parser);
+        this.limits = limits;
+        // root object, $and array, element object... up to the value object of a condition and its $in array
+        this.maxJsonDepth = 2L * limits.getMaxDepth() + 1;
+        // a condition is a field, and a field with its operations when its value is an object
+        this.maxFields = 2L * limits.getMaxNodes();
+        this.maxArraySize = Math.max(limits.getMaxInSize(), limits.getMaxNodes());
+        if (parser.hasToken(JsonToken.START_OBJECT) || parser.hasToken(JsonToken.START_ARRAY)) {
+            open(parser.hasToken(JsonToken.START_ARRAY));
+        }
+    }
+
+    @Override
+    public JsonToken nextToken() throws IOException {
+        JsonToken token = delegate.nextToken();
+        if (token == null) {
+            return null;
+        }
+        if (token != JsonToken.FIELD_NAME && token != JsonToken.END_OBJECT && token != JsonToken.END_ARRAY
+                && depth > 0 && sizes[depth - 1] >= 0 && ++sizes[depth - 1] > maxArraySize) {
+            throw new InvalidQueryException("The predicate has an array of more than " + maxArraySize + " values");
+        }
+        switch (token) {
+            case START_OBJECT:
+                open(false);
+                break;
+            case START_ARRAY:
+                open(true);
+                break;
+            case END_OBJECT:
+            case END_ARRAY:
+                depth--;
+                break;
+            case FIELD_NAME:
+                if (++fields > maxFields) {
+                    throw new InvalidQueryException("The predicate has more than " + limits.getMaxNodes() + " conditions");
+                }
+                break;
+            default:
+                break;
+        }
+        return token;
+    }
+
+    @Override
+    public JsonToken nextValue() throws IOException {
+        JsonToken token = nextToken();
+        return token == JsonToken.FIELD_NAME ? nextToken() : token;
+    }
+
+    @Override
+    public JsonParser skipChildren() throws IOException {
+        if (!hasToken(JsonToken.START_OBJECT) && !hasToken(JsonToken.START_ARRAY)) {
+            return this;
+        }
+        // the skipped tokens are counted too
+        int open = 1;
+        while (open > 0) {
+            JsonToken token = nextToken();
+            if (token == null) {
+                return this;
+            } else if (token.isStructStart()) {
+                open++;
+            } else if (token.isStructEnd()) {
+                open--;
+            }
+        }
+        return this;
+    }
+
+    private void open(boolean array) {
+        if (depth + 1 > maxJsonDepth) {
+            throw new InvalidQueryException("The predicate is nested deeper than " + limits.getMaxDepth() + " levels");
+        }
+        if (depth == sizes.length) {
+            long[] grown = new long[sizes.length * 2];
+            System.arraycopy(sizes, 0, grown, 0, sizes.length);
+            sizes = grown;
+        }
+        sizes[depth++] = array ? 0 : -1;
+    }
+}
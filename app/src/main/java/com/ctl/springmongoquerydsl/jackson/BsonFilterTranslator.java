@@ -0,0 +1,154 @@
+package com.ctl.springmongoquerydsl.jackson;
+
+import com.ctl.springmongoquerydsl.jackson.DefaultQueryDslDeserializer.DSLJsonDeserializerException;
+import com.ctl.springmongoquerydsl.utils.MyPathUtils;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.querydsl.core.types.Path;
+import org.bson.Document;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Translate a json predicate straight into a mongo filter, without building the queryDSL expression : for the
+ * operators which are the same in mongo ($eq, $ne, $lt, $gt, $lte, $gte, $in, $nin, $and, $or).
+ * <p>
+ * The paths are resolved and the values converted by the deserializer, like for the queryDSL predicate, and the
+ * complexity limits are checked first. The keys of the filter are property paths, the field names and the id
+ * conversion are left to the query mapper of the template (like {@link com.ctl.springmongoquerydsl.dao.MongoPredicateSerializer}).
+ * When the predicate uses another operator, or an unusual form, there is no translation and the predicate has to
+ * go through the deserializer.
+ */
+public class BsonFilterTranslator {
+
+    /**
+     * the operators with the same meaning in mongo
+     */
+    private static final Set<QueryDslOperator> VALUE_OPERATORS = EnumSet.of(QueryDslOperator.EQ, QueryDslOperator.NE,
+            QueryDslOperator.LT, QueryDslOperator.GT, QueryDslOperator.LOE, QueryDslOperator.GOE, QueryDslOperator.IN,
+            QueryDslOperator.NOT_IN);
+
+    private final DefaultQueryDslDeserializer<?> deserializer;
+
+    /**
+     * Default constructor of {@link BsonFilterTranslator}
+     *
+     * @param deserializer the deserializer resolving the paths and converting the values
+     */
+    public BsonFilterTranslator(DefaultQueryDslDeserializer<?> deserializer) {
+        this.deserializer = deserializer;
+    }
+
+    /**
+     * Translate a json predicate
+     *
+     * @param rootNode    the json predicate
+     * @param entityClass the root entity class
+     * @return the mongo filter, empty if the predicate can not be translated
+     * @throws DSLJsonDeserializerException if a path does not exist, a value can not be converted or the predicate
+     *                                      is over the complexity limits
+     */
+    public Optional<Document> translate(JsonNode rootNode, Class<?> entityClass) {
+        try {
+            if (!rootNode.isObject()) {
+                return Optional.empty();
+            }
+            if (deserializer.getComplexityLimits() != null) {
+                deserializer.getComplexityLimits().check(rootNode, deserializer, entityClass);
+            }
+            return Optional.ofNullable(translateObject(rootNode, entityClass));
+        } catch (Exception e) {
+            throw new DSLJsonDeserializerException("Unable to deserialize json in queryDSL predicate", e);
+        }
+    }
+
+    /**
+     * @return the filter of the object, null if it can not be translated
+     */
+    private Document translateObject(JsonNode node, Class<?> entityClass) {
+        Document filter = new Document();
+        Iterator<Entry<String, JsonNode>> fields = node.fields();
+        while (fields.hasNext()) {
+            Entry<String, JsonNode> field = fields.next();
+            Optional<QueryDslOperator> operator = deserializer.getOperator(field.getKey());
+            String key;
+            Object value;
+            if (operator.isPresent()) {
+                if (operator.get() != QueryDslOperator.AND && operator.get() != QueryDslOperator.OR) {
+                    return null;
+                }
+                key = operator.get().getJson();
+                value = translateOrAnd(field.getValue(), entityClass);
+            } else {
+                Path<?> path = deserializer.buildPath(field.getKey(), entityClass);
+                key = MyPathUtils.toPropertyPath(path);
+                value = translateCondition(path, field.getValue());
+            }
+            if (value == null) {
+                return null;
+            }
+            filter.put(key, value);
+        }
+        return filter;
+    }
+
+    /**
+     * @return the filters of the $and / $or elements, null if they can not be translated
+     */
+    private List<Document> translateOrAnd(JsonNode elements, Class<?> entityClass) {
+        if (!elements.isArray() || elements.size() == 0) {
+            return null;
+        }
+        List<Document> filters = new ArrayList<>();
+        for (JsonNode element : elements) {
+            Document filter = element.isObject() ? translateObject(element, entityClass) : null;
+            if (filter == null) {
+                return null;
+            }
+            filters.add(filter);
+        }
+        return filters;
+    }
+
+    /**
+     * @return the value of the path in the filter, null if it can not be translated
+     */
+    private Object translateCondition(Path<?> path, JsonNode value) {
+        if (!value.isObject()) {
+            return toMongo(deserializer.convert(value, path.getType()));
+        }
+        // a single operator, several operators on a path are not supported by the deserializer
+        if (value.size() != 1) {
+            return null;
+        }
+        Entry<String, JsonNode> operation = value.fields().next();
+        QueryDslOperator operator = QueryDslOperator.findFromJson(operation.getKey()).orElse(null);
+        if (operator == null || !VALUE_OPERATORS.contains(operator)) {
+            return null;
+        }
+        if (operator == QueryDslOperator.IN || operator == QueryDslOperator.NOT_IN) {
+            if (!operation.getValue().isArray()) {
+                return null;
+            }
+            List<Object> values = new ArrayList<>();
+            for (JsonNode element : operation.getValue()) {
+                values.add(deserializer.convert(element, path.getType()));
+            }
+            return new Document(operator.getJson(), values);
+        }
+        Object converted = toMongo(deserializer.convert(operation.getValue(), path.getType()));
+        return operator == QueryDslOperator.EQ ? converted : new Document(operator.getJson(), converted);
+    }
+
+    /**
+     * The value as written by the queryDSL serializer : the enums by name
+     */
+    private static Object toMongo(Object value) {
+        return value instanceof Enum ? ((Enum<?>) value).name() : value;
+    }
+}
@@ -0,0 +1,192 @@
+package com.ctl.springmongoquerydsl.jackson;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonValueCodec;
+import org.bson.codecs.DecoderContext;
+import org.springframework.data.mapping.PropertyHandler;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Write raw BSON documents as json without building the entities : the BSON is read token by token and written
+ * to the json generator, the mongo field names being renamed to the json names of the entity properties.
+ * <p>
+ * The properties are the ones the object mapper writes : its naming strategy, {@link com.fasterxml.jackson.annotation.JsonProperty}
+ * and {@link com.fasterxml.jackson.annotation.JsonIgnore} are applied, the fields of the document without property
+ * (and the type hint, _class) are dropped, and the null values are dropped when the inclusion of their property
+ * is not ALWAYS. The values are written like jackson writes them by type : object ids as hex strings, dates
+ * through the object mapper of the generator. The property level serializers (@JsonSerialize, @JsonFormat...)
+ * are not applied, the endpoints using them have to build the entities.
+ */
+public class BsonJsonTranscoder {
+
+    private static final BsonValueCodec VALUE_CODEC = new BsonValueCodec();
+
+    private final FieldNames rootNames;
+
+    /**
+     * Default constructor of {@link BsonJsonTranscoder}, the field names of the entity and of its embedded
+     * entities are resolved once
+     *
+     * @param mappingContext the mongo mapping context
+     * @param objectMapper   the object mapper writing the entities, for the json names of the properties
+     * @param entityClass    the entity of the documents
+     */
+    public BsonJsonTranscoder(MongoMappingContext mappingContext, ObjectMapper objectMapper, Class<?> entityClass) {
+        this.rootNames = fieldNames(mappingContext, objectMapper.getSerializationConfig(), entityClass, new HashMap<>());
+    }
+
+    /**
+     * Write a document as a json object
+     *
+     * @param document  the raw document
+     * @param generator the json generator
+     */
+    public void write(RawBsonDocument document, JsonGenerator generator) throws IOException {
+        try (BsonBinaryReader reader = new BsonBinaryReader(document.getByteBuffer().asNIO())) {
+            writeDocument(reader, generator, rootNames);
+        }
+    }
+
+    private void writeDocument(BsonReader reader, JsonGenerator generator, FieldNames names) throws IOException {
+        reader.readStartDocument();
+        generator.writeStartObject();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            String field = reader.readName();
+            if (names == null) {
+                generator.writeFieldName(field);
+                writeValue(reader, generator, null);
+                continue;
+            }
+            String property = names.properties.get(field);
+            if (property == null || (reader.getCurrentBsonType() == BsonType.NULL && names.nonNull.contains(field))) {
+                reader.skipValue();
+                continue;
+            }
+            generator.writeFieldName(property);
+            writeValue(reader, generator, names.nested.get(field));
+        }
+        reader.readEndDocument();
+        generator.writeEndObject();
+    }
+
+    private void writeValue(BsonReader reader, JsonGenerator generator, FieldNames names) throws IOException {
+        switch (reader.getCurrentBsonType()) {
+            case DOCUMENT:
+                writeDocument(reader, generator, names);
+                break;
+            case ARRAY:
+                reader.readStartArray();
+                generator.writeStartArray();
+                while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+                    writeValue(reader, generator, names);
+                }
+                reader.readEndArray();
+                generator.writeEndArray();
+                break;
+            case STRING:
+                generator.writeString(reader.readString());
+                break;
+            case INT32:
+                generator.writeNumber(reader.readInt32());
+                break;
+            case INT64:
+                generator.writeNumber(reader.readInt64());
+                break;
+            case DOUBLE:
+                generator.writeNumber(reader.readDouble());
+                break;
+            case DECIMAL128:
+                generator.writeNumber(reader.readDecimal128().bigDecimalValue());
+                break;
+            case BOOLEAN:
+                generator.writeBoolean(reader.readBoolean());
+                break;
+            case OBJECT_ID:
+                generator.writeString(reader.readObjectId().toHexString());
+                break;
+            case DATE_TIME:
+                generator.writeObject(new Date(reader.readDateTime()));
+                break;
+            case BINARY:
+                generator.writeBinary(reader.readBinaryData().getData());
+                break;
+            case NULL:
+                reader.readNull();
+                generator.writeNull();
+                break;
+            case UNDEFINED:
+                reader.readUndefined();
+                generator.writeNull();
+                break;
+            default:
+                // the types without json equivalent (timestamp, regex, javascript...) are written as strings
+                generator.writeString(VALUE_CODEC.decode(reader, DecoderContext.builder().build()).toString());
+        }
+    }
+
+    /**
+     * Resolve the field names of an entity, the entities already resolved are shared (recursive types)
+     */
+    private static FieldNames fieldNames(MongoMappingContext mappingContext, SerializationConfig config, Class<?> type,
+                                         Map<Class<?>, FieldNames> resolved) {
+        FieldNames names = resolved.get(type);
+        if (names != null) {
+            return names;
+        }
+        names = new FieldNames();
+        resolved.put(type, names);
+        BeanDescription description = config.introspect(config.constructType(type));
+        Map<String, BeanPropertyDefinition> jsonProperties = new HashMap<>();
+        for (BeanPropertyDefinition jsonProperty : description.findProperties()) {
+            if (jsonProperty.couldSerialize()) {
+                jsonProperties.put(jsonProperty.getInternalName(), jsonProperty);
+            }
+        }
+        JsonInclude.Value defaultInclusion = config.getDefaultPropertyInclusion(type);
+        MongoPersistentEntity<?> entity = mappingContext.getRequiredPersistentEntity(type);
+        FieldNames entityNames = names;
+        entity.doWithProperties((PropertyHandler<MongoPersistentProperty>) property -> {
+            BeanPropertyDefinition jsonProperty = jsonProperties.get(property.getName());
+            if (jsonProperty == null) {
+                return;
+            }
+            entityNames.properties.put(property.getFieldName(), jsonProperty.getName());
+            JsonInclude.Include inclusion = defaultInclusion.withOverrides(jsonProperty.findInclusion()).getValueInclusion();
+            if (inclusion != JsonInclude.Include.ALWAYS && inclusion != JsonInclude.Include.USE_DEFAULTS) {
+                entityNames.nonNull.add(property.getFieldName());
+            }
+            if (property.isEntity()) {
+                entityNames.nested.put(property.getFieldName(), fieldNames(mappingContext, config, property.getActualType(), resolved));
+            }
+        });
+        return names;
+    }
+
+    /**
+     * The json name of each mapped mongo field of an entity, its fields without null and the names of its embedded
+     * entities
+     */
+    private static class FieldNames {
+        private final Map<String, String> properties = new HashMap<>();
+        private final Set<String> nonNull = new HashSet<>();
+        private final Map<String, FieldNames> nested = new HashMap<>();
+    }
+}
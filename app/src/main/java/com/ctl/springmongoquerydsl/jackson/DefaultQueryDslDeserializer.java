@@ -0,0 +1,526 @@
+package com.ctl.springmongoquerydsl.jackson;
+
+import com.ctl.springmongoquerydsl.metrics.QueryMetrics;
+import com.ctl.springmongoquerydsl.utils.MyStreamUtils;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.google.common.collect.Lists;
+import com.querydsl.core.types.*;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.Expressions;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+import java.util.Map.Entry;
+import java.util.stream.Collectors;
+
+import static com.querydsl.core.types.dsl.Expressions.constant;
+
+
+/**
+ * Permits to deserialize a json predicate and orderBys into queryDSL object.
+ */
+public class DefaultQueryDslDeserializer<T> extends StdDeserializer<Predicate> {
+
+    /**
+     * maximum number of paths kept by the default path registry
+     */
+    public static final long DEFAULT_PATH_REGISTRY_SIZE = 10_000;
+
+    /**
+     * the jackson object mapper
+     */
+    protected final ObjectMapper mapper;
+    /**
+     * The value converter
+     */
+    protected final JsonTypeConverter converter;
+
+    protected final Class<? extends Predicate> entityClass;
+
+    /**
+     * The resolved paths of the entities
+     */
+    protected EntityPathRegistry pathRegistry;
+
+    /**
+     * Optional cache of compiled predicate templates, null when disabled
+     */
+    protected PredicateTemplateCache templateCache;
+
+    /**
+     * How the json predicate is read, see {@link ParserMode}
+     */
+    protected ParserMode parserMode = ParserMode.TREE;
+
+    /**
+     * Bounds of the predicates, null when unbounded
+     */
+    protected QueryComplexityLimits complexityLimits;
+
+    /**
+     * Measure of the parse and build phases, disabled by default
+     */
+    protected QueryMetrics metrics = QueryMetrics.NOOP;
+
+    /**
+     * Default constructor of {@link DefaultQueryDslDeserializer}
+     */
+    public DefaultQueryDslDeserializer(Class<? extends Predicate> entityClass) {
+        super(Predicate.class);
+        this.mapper = new ObjectMapper();
+        this.converter = new JsonTypeConverter();
+        this.entityClass = entityClass;
+        this.pathRegistry = new EntityPathRegistry(DEFAULT_PATH_REGISTRY_SIZE);
+    }
+
+    /**
+     * Create a deserializer of another entity, sharing the path registry, the template cache, the parser mode,
+     * the limits and the metrics of this one
+     *
+     * @param entityClass the root entity class of the new deserializer
+     * @return the new deserializer
+     */
+    @SuppressWarnings("unchecked")
+    public DefaultQueryDslDeserializer<?> copyFor(Class<?> entityClass) {
+        DefaultQueryDslDeserializer<?> deserializer = new DefaultQueryDslDeserializer((Class) entityClass);
+        deserializer.setPathRegistry(pathRegistry);
+        deserializer.setTemplateCache(templateCache);
+        deserializer.setParserMode(parserMode);
+        deserializer.setComplexityLimits(complexityLimits);
+        deserializer.setMetrics(metrics);
+        return deserializer;
+    }
+
+    public Class<?> getEntityClass() {
+        return entityClass;
+    }
+
+    /**
+     * Share a path registry, by default each deserializer has its own
+     *
+     * @param pathRegistry the path registry
+     */
+    public void setPathRegistry(EntityPathRegistry pathRegistry) {
+        this.pathRegistry = pathRegistry;
+    }
+
+    public EntityPathRegistry getPathRegistry() {
+        return pathRegistry;
+    }
+
+    /**
+     * Enable the compiled predicate template cache
+     *
+     * @param templateCache the template cache, null to disable it
+     */
+    public void setTemplateCache(PredicateTemplateCache templateCache) {
+        this.templateCache = templateCache;
+    }
+
+    public PredicateTemplateCache getTemplateCache() {
+        return templateCache;
+    }
+
+    /**
+     * Select how the json predicates are read by this deserializer
+     *
+     * @param parserMode the parser mode
+     */
+    public void setParserMode(ParserMode parserMode) {
+        this.parserMode = parserMode;
+    }
+
+    public ParserMode getParserMode() {
+        return parserMode;
+    }
+
+    /**
+     * Bound the complexity of the predicates
+     *
+     * @param complexityLimits the limits, null for no limit
+     */
+    public void setComplexityLimits(QueryComplexityLimits complexityLimits) {
+        this.complexityLimits = complexityLimits;
+    }
+
+    public QueryComplexityLimits getComplexityLimits() {
+        return complexityLimits;
+    }
+
+    /**
+     * Measure the parse and build phases of the predicates
+     *
+     * @param metrics the query metrics, {@link QueryMetrics#NOOP} to disable them
+     */
+    public void setMetrics(QueryMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Predicate deserialize(JsonParser jsonParser, DeserializationContext deserializationContext) throws IOException, JsonProcessingException {
+        long start = metrics.start();
+        if (parserMode == ParserMode.STREAMING) {
+            // parsing and build are a single phase
+            BooleanExpression predicate = new StreamingPredicateReader(this, jsonParser, this.entityClass).read();
+            metrics.built(start, predicate);
+            return predicate;
+        }
+        final JsonNode jsonNode = jsonParser.getCodec().readTree(boundedParser(jsonParser));
+        start = metrics.parsed(start);
+        BooleanExpression predicate = buildRootPredicate(jsonNode, this.entityClass);
+        metrics.built(start, predicate);
+        return predicate;
+    }
+
+    /**
+     * Create a queryDSL predicate from the specified json
+     *
+     * @param json        the json predicate
+     * @param entityClass the root entity class
+     * @return the queryDSL predicate
+     */
+    public BooleanExpression deserializePredicate(String json, Class<?> entityClass) {
+        try (JsonParser jsonParser = mapper.getFactory().createParser(json)) {
+            return readPredicate(jsonParser, entityClass);
+        } catch (Exception e) {
+            throw new DSLJsonDeserializerException("Unable to deserialize json in queryDSL predicate", e);
+        }
+    }
+
+    /**
+     * Create a queryDSL predicate from the specified json stream, in STREAMING mode it is read in a single pass
+     *
+     * @param json        the json predicate
+     * @param entityClass the root entity class
+     * @return the queryDSL predicate
+     */
+    public BooleanExpression deserializePredicate(InputStream json, Class<?> entityClass) {
+        try (JsonParser jsonParser = mapper.getFactory().createParser(json)) {
+            return readPredicate(jsonParser, entityClass);
+        } catch (Exception e) {
+            throw new DSLJsonDeserializerException("Unable to deserialize json in queryDSL predicate", e);
+        }
+    }
+
+    private BooleanExpression readPredicate(JsonParser jsonParser, Class<?> entityClass) throws IOException {
+        long start = metrics.start();
+        BooleanExpression predicate;
+        if (parserMode == ParserMode.STREAMING) {
+            jsonParser.nextToken();
+            predicate = new StreamingPredicateReader(this, jsonParser, entityClass).read();
+        } else {
+            JsonNode jsonNode = mapper.readTree(boundedParser(jsonParser));
+            start = metrics.parsed(start);
+            predicate = buildRootPredicate(jsonNode, entityClass);
+        }
+        metrics.built(start, predicate);
+        return predicate;
+    }
+
+    /**
+     * @return the parser of the json tree, bounded by the limits when there are some
+     */
+    private JsonParser boundedParser(JsonParser jsonParser) {
+        return complexityLimits == null ? jsonParser : complexityLimits.bound(jsonParser);
+    }
+
+    /**
+     * Create a queryDSL predicate from the specified json node
+     *
+     * @param jsonNode    the json predicate
+     * @param entityClass the root entity class
+     * @return the queryDSL predicate
+     */
+    public BooleanExpression deserializePredicate(JsonNode jsonNode, Class<?> entityClass) {
+        try {
+            long start = metrics.start();
+            BooleanExpression predicate = buildRootPredicate(jsonNode, entityClass);
+            metrics.built(start, predicate);
+            return predicate;
+        } catch (Exception e) {
+            throw new DSLJsonDeserializerException("Unable to deserialize json in queryDSL predicate", e);
+        }
+    }
+
+    /**
+     * Create a collection of queryDSL order bys from the specified json node
+     *
+     * @param jsonNode    the json order bys
+     * @param entityClass the root entity class
+     * @return the collection of queryDSL order bys
+     */
+    public List<OrderSpecifier> deserializeOrderBys(JsonNode jsonNode, Class<?> entityClass) {
+        try {
+            return buildOrderBys(jsonNode, entityClass);
+        } catch (Exception e) {
+            throw new DSLJsonDeserializerException("Unable to deserialize json in queryDSL order bys", e);
+        }
+    }
+
+    /**
+     * Resolve the queryDSL path of the specified string path
+     *
+     * @param path        the string path. ex : person.family
+     * @param entityClass the root entity class
+     * @return the queryDSL path
+     * @throws IllegalArgumentException if the path does not exist
+     */
+    public EntityPath<?> resolvePath(String path, Class<?> entityClass) {
+        return buildPath(path, entityClass);
+    }
+
+    public JsonTypeConverter getConverter() {
+        return converter;
+    }
+
+    /**
+     * Create a collection of queryDSL order bys from the specified json
+     *
+     * @param json        the json order bys
+     * @param entityClass the root entity class
+     * @return the collection of queryDSL order bys
+     */
+    public List<OrderSpecifier> deserializeOrderBys(String json, Class<?> entityClass) {
+        try {
+            JsonNode jsonNode = mapper.readTree(json);
+            return buildOrderBys(jsonNode, entityClass);
+        } catch (Exception e) {
+            throw new DSLJsonDeserializerException("Unable to deserialize json in queryDSL order bys", e);
+        }
+    }
+
+    /**
+     * Build all order specifier from the specified JSONObject
+     */
+    private List<OrderSpecifier> buildOrderBys(JsonNode rootNode, Class<?> entityClass) {
+
+        return MyStreamUtils.fromIterator(rootNode.fields())
+                .map(node -> buildPathAndOrderBy(node.getKey(), node.getValue(), entityClass))
+                .flatMap(Collection::stream)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Build an order by expression
+     */
+    protected List<OrderSpecifier> buildPathAndOrderBy(String key, JsonNode value, Class<?> entityClass) {
+        EntityPath entityPath = buildPath(key, entityClass);
+        return buildOrderBy(entityPath, value);
+    }
+
+    @SuppressWarnings("unchecked")
+    protected List<OrderSpecifier> buildOrderBy(EntityPath entityPath, JsonNode value) {
+        if (!value.isObject() && value.isTextual()) {
+            return Lists.newArrayList(new OrderSpecifier(convert(value.asText(), Order.class), entityPath));
+        }
+        throw new IllegalArgumentException("The object value have to be a string : " + value.toString());
+    }
+
+    /**
+     * Build the root predicate, going through the template cache when it is enabled
+     */
+    protected BooleanExpression buildRootPredicate(JsonNode rootNode, Class<?> entityClass) {
+        if (complexityLimits != null) {
+            complexityLimits.check(rootNode, this, entityClass);
+        }
+        if (templateCache == null) {
+            return buildPredicates(rootNode, entityClass);
+        }
+        return templateCache.getTemplate(rootNode, entityClass, this).bind(rootNode, this);
+    }
+
+    /**
+     * Build all predicates from the specified map
+     */
+    protected BooleanExpression buildPredicates(JsonNode rootNode, Class<?> entityClass) {
+        List<BooleanExpression> expressions = MyStreamUtils.fromIterator(rootNode.fields())
+                .map(node -> buildPredicate(node.getKey(), node.getValue(), entityClass))
+                .collect(Collectors.toList());
+        return Expressions.allOf(expressions.toArray(new BooleanExpression[expressions.size()]));
+    }
+
+    /**
+     * Build a predicate with the specified key and object value
+     */
+    protected BooleanExpression buildPredicate(String key, JsonNode nodeValue, Class<?> entityClass) {
+        Optional<QueryDslOperator> operator = getOperator(key);
+        if (operator.isPresent()) {
+            // the key is an operator
+            // it is an array of and or or predicates
+            return buildOrAndPredicate(nodeValue, operator.get(), entityClass);
+        } else {
+            // build the path
+            EntityPath entityPath = buildPath(key, entityClass);
+            return buildBasePredicate(entityPath, nodeValue);
+        }
+    }
+
+    /**
+     * Build base predicate  : path - operator - value
+     */
+    protected BooleanExpression buildBasePredicate(EntityPath entityPath, JsonNode nodeValue) {
+        List<Expression> expressions = new ArrayList<>();
+        // add the path to the expressions list
+        expressions.add(entityPath);
+        QueryDslOperator valueOp = QueryDslOperator.EQ;
+        // if it is an object like { "$lt" : "value" }
+        if (nodeValue.isObject()) {
+            Iterator<Entry<String, JsonNode>> fields = nodeValue.fields();
+            while (fields.hasNext()) {
+                Entry<String, JsonNode> objectNode = fields.next();
+                // the key is the operator
+                valueOp = QueryDslOperator.getFromJson(objectNode.getKey());
+                addValues(valueOp, objectNode.getValue(), entityPath, expressions);
+            }
+        } else {
+            // it is a value
+            expressions.add(createValue(nodeValue, entityPath));
+        }
+        return Expressions.predicate(valueOp.getDSLOperator(), expressions.toArray(new Expression[expressions.size()]));
+    }
+
+    /**
+     * Add the queryDSL constant(s) of the json value associated to the specified operator
+     */
+    protected void addValues(QueryDslOperator valueOp, JsonNode value, EntityPath entityPath, List<Expression> expressions) {
+        if (valueOp.equals(QueryDslOperator.BETWEEN)) {
+            MyStreamUtils.fromIterator(value.elements())
+                    .forEach(v -> expressions.add(createValue(v, entityPath)));
+        } else if (valueOp.equals(QueryDslOperator.IN) || valueOp.equals(QueryDslOperator.NOT_IN)) {
+            expressions.add(constant(
+                    MyStreamUtils.fromIterator(value.elements())
+                            .map(v -> (Object) convert(v, entityPath.getType()))
+                            .collect(Collectors.toList())));
+        } else {
+            // simple value
+            expressions.add(createValue(value, entityPath));
+        }
+    }
+
+    /**
+     * create a queryDSL constant value for the given json node
+     */
+    protected Expression createValue(JsonNode value, EntityPath entityPath) {
+        return constant(convert(value, entityPath.getType()));
+    }
+
+    /**
+     * create a queryDSL constant value for the current token of the json parser
+     */
+    protected Expression createValue(JsonParser parser, EntityPath entityPath) throws IOException {
+        return constant(convert(parser, entityPath.getType()));
+    }
+
+    /**
+     * Build a predicate with operator and, or (array of predicates)
+     */
+    protected BooleanExpression buildOrAndPredicate(JsonNode nodeValue, QueryDslOperator operator, Class<?> entityClass) {
+        List<BooleanExpression> booleanExpressions = new ArrayList<>();
+        // the key is an operator ($and - $or - ...)
+        if (nodeValue.isArray()) {
+            Iterator<JsonNode> elements = nodeValue.elements();
+            while (elements.hasNext()) {
+                JsonNode element = elements.next();
+                if (element.isObject()) {
+                    booleanExpressions.add(buildPredicates(element, entityClass));
+                } else {
+                    throw new IllegalStateException("expected to have an object instead of " + element.toString());
+                }
+            }
+            if (operator.equals(QueryDslOperator.AND)) {
+                return Expressions.allOf(booleanExpressions.toArray(new BooleanExpression[booleanExpressions.size()]));
+            } else if (operator.equals(QueryDslOperator.OR)) {
+                return Expressions.anyOf(booleanExpressions.toArray(new BooleanExpression[booleanExpressions.size()]));
+            } else {
+                throw new IllegalStateException("Don't supported operator here : " + operator);
+            }
+        } else {
+            throw new IllegalStateException("expected to have an array type instead of "
+                    + nodeValue.toString());
+        }
+    }
+
+    /**
+     * Cast the json string value into an object of the associated field type
+     *
+     * @param value the string value
+     * @param type  the field type
+     * @return the value transformed into the associated field type
+     */
+    protected <T> T convert(String value, Class<T> type) {
+        return converter.convert(value, type);
+    }
+
+    /**
+     * Cast the json value into an object of the associated field type
+     *
+     * @param value the json value
+     * @param type  the field type
+     * @return the value transformed into the associated field type
+     */
+    protected <T> T convert(JsonNode value, Class<T> type) {
+        return converter.convert(value, type);
+    }
+
+    /**
+     * Cast the current json token into an object of the associated field type
+     *
+     * @param parser the json parser positioned on the value
+     * @param type   the field type
+     * @return the value transformed into the associated field type
+     */
+    protected <T> T convert(JsonParser parser, Class<T> type) throws IOException {
+        return converter.convert(parser, type);
+    }
+
+    /**
+     * Build a queryDSL path from the specified string path
+     *
+     * @param path        the string path. ex : content.product.packaging
+     * @param entityClass the entity root class
+     * @return the queryDSL path
+     */
+    protected EntityPath<?> buildPath(String path, Class entityClass) {
+        return pathRegistry.resolve(entityClass, path);
+    }
+
+    /**
+     * Get the JSONOperator from the json value
+     *
+     * @param operator the json operator value
+     * @return optional operator
+     */
+    protected Optional<QueryDslOperator> getOperator(String operator) {
+        return QueryDslOperator.findFromJson(operator);
+    }
+
+    /**
+     * The way the json predicate is read
+     */
+    public enum ParserMode {
+        /**
+         * the json is first read into a {@link JsonNode} tree (default). Required by the template cache.
+         */
+        TREE,
+        /**
+         * the predicate is built in a single pass over the {@link JsonParser} tokens, without intermediate tree
+         */
+        STREAMING
+    }
+
+    /**
+     * QueryDslToJsonDeserializer exception
+     */
+    public static class DSLJsonDeserializerException extends RuntimeException {
+
+        public DSLJsonDeserializerException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+}
\ No newline at end of file
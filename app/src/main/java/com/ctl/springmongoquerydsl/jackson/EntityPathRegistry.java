@@ -0,0 +1,206 @@
+package com.ctl.springmongoquerydsl.jackson;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.primitives.Primitives;
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.dsl.PathBuilder;
+import com.querydsl.core.types.dsl.PathBuilderValidator;
+import lombok.Value;
+
+import java.beans.Introspector;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of the resolved queryDSL paths of each entity class.
+ * <p>
+ * A string path (ex : person.address.city) is validated against the entity fields and turned into a
+ * {@link PathBuilder} only once, the following resolutions are a plain lookup. Unknown paths are remembered as
+ * well so that they are rejected without going through the reflection again.
+ * <p>
+ * The entities having an {@link EntityPathTable} generated at compile time are resolved from their table, which is
+ * never evicted, the reflection is only used for the paths which are not in it.
+ */
+public class EntityPathRegistry {
+
+    /**
+     * maximum depth of the embedded objects registered by {@link #register(Class)}
+     */
+    private static final int MAX_REGISTER_DEPTH = 3;
+
+    /**
+     * the fields validator, with the element type of the arrays as for the collections : mongo matches a condition
+     * on an array field against each of its elements
+     */
+    private static final PathBuilderValidator VALIDATOR = (parent, property, propertyType) -> {
+        Class<?> type = PathBuilderValidator.FIELDS.validate(parent, property, propertyType);
+        return type != null && type.isArray() ? Primitives.wrap(type.getComponentType()) : type;
+    };
+
+    private final Cache<PathKey, ResolvedPath> paths;
+
+    /**
+     * the generated path tables, by entity class
+     */
+    private final Map<Class<?>, EntityPathTable> tables = new ConcurrentHashMap<>();
+
+    /**
+     * Default constructor of {@link EntityPathRegistry}
+     *
+     * @param maximumSize the maximum number of paths (known and unknown) kept in the registry
+     */
+    public EntityPathRegistry(long maximumSize) {
+        this.paths = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Get the queryDSL path of the specified string path
+     *
+     * @param entityClass the entity root class
+     * @param path        the string path. ex : content.product.packaging
+     * @return the queryDSL path
+     * @throws IllegalArgumentException if the path does not exist on the entity
+     */
+    public EntityPath<?> resolve(Class<?> entityClass, String path) {
+        EntityPathTable table = tables.get(entityClass);
+        if (table != null) {
+            EntityPath<?> entityPath = table.get(path);
+            if (entityPath != null) {
+                return entityPath;
+            }
+        }
+        PathKey key = new PathKey(entityClass, path);
+        ResolvedPath resolvedPath = paths.getIfPresent(key);
+        if (resolvedPath == null) {
+            resolvedPath = doResolve(entityClass, path);
+            paths.put(key, resolvedPath);
+        }
+        if (resolvedPath.getEntityPath() == null) {
+            throw new IllegalArgumentException(resolvedPath.getError());
+        }
+        return resolvedPath.getEntityPath();
+    }
+
+    /**
+     * Eagerly resolve all the field paths of the specified entity, the root variable being the uncapitalized
+     * simple name of the class (ex : person.name for Person)
+     *
+     * @param entityClass the entity class
+     */
+    public void register(Class<?> entityClass) {
+        if (tables.containsKey(entityClass)) {
+            // already known at compile time
+            return;
+        }
+        register(entityClass, Introspector.decapitalize(entityClass.getSimpleName()), entityClass, 0);
+    }
+
+    /**
+     * Register the specified generated path table, its paths are resolved without reflection
+     *
+     * @param table the path table
+     */
+    public void register(EntityPathTable table) {
+        tables.put(table.getEntityClass(), table);
+    }
+
+    /**
+     * Register all the path tables generated at compile time, listed in META-INF/services
+     *
+     * @return the number of registered tables
+     */
+    public int registerGeneratedTables() {
+        int count = 0;
+        for (EntityPathTable table : ServiceLoader.load(EntityPathTable.class, EntityPathRegistry.class.getClassLoader())) {
+            register(table);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * @param entityClass the entity class
+     * @return true if the paths of the entity come from a generated table
+     */
+    public boolean hasTable(Class<?> entityClass) {
+        return tables.containsKey(entityClass);
+    }
+
+    private void register(Class<?> entityClass, String prefix, Class<?> type, int depth) {
+        for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+            for (Field field : current.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers()) || Modifier.isTransient(field.getModifiers()) || field.isSynthetic()) {
+                    continue;
+                }
+                String path = prefix + "." + field.getName();
+                resolve(entityClass, path);
+                if (depth < MAX_REGISTER_DEPTH && !isSimpleType(field.getType())) {
+                    register(entityClass, path, field.getType(), depth + 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the hit / miss / eviction counters of the registry
+     */
+    public CacheStats getStats() {
+        return paths.stats();
+    }
+
+    /**
+     * @return the number of paths in the registry, the generated tables included
+     */
+    public long size() {
+        long size = paths.size();
+        for (EntityPathTable table : tables.values()) {
+            size += table.paths().size();
+        }
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    private ResolvedPath doResolve(Class<?> entityClass, String path) {
+        String[] paths = path.split("\\.");
+        if (paths.length == 0) {
+            return new ResolvedPath(null, "The specified path is incorrect : " + path);
+        }
+        try {
+            PathBuilder builder = new PathBuilder(entityClass, paths[0], VALIDATOR);
+            for (int i = 1; i < paths.length; i++) {
+                builder = builder.get(paths[i]);
+            }
+            return new ResolvedPath(builder, null);
+        } catch (IllegalArgumentException e) {
+            return new ResolvedPath(null, "The specified path is incorrect : " + path + " (" + e.getMessage() + ")");
+        }
+    }
+
+    private static boolean isSimpleType(Class<?> type) {
+        return type.isPrimitive() || type.isEnum() || type.isArray() || type.getName().startsWith("java.")
+                || type.getName().startsWith("org.bson.");
+    }
+
+    @Value
+    private static class PathKey {
+        Class<?> entityClass;
+        String path;
+    }
+
+    /**
+     * A resolved path, or the reason why it does not exist
+     */
+    @Value
+    private static class ResolvedPath {
+        EntityPath<?> entityPath;
+        String error;
+    }
+}
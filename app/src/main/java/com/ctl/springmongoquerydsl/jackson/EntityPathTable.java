@@ -0,0 +1,33 @@
+package com.ctl.springmongoquerydsl.jackson;
+
+import com.querydsl.core.types.EntityPath;
+
+import java.util.Set;
+
+/**
+ * The queryDSL paths of the fields of an entity, generated at compile time by the annotation processor of the
+ * spring-mongo-querydsl-processor module for each @Document class (ex : PersonPathTable for Person).
+ * <p>
+ * The generated tables are listed in META-INF/services and loaded with the {@link java.util.ServiceLoader} by
+ * {@link EntityPathRegistry#registerGeneratedTables()}, so that the paths are known without any reflection on the
+ * entity fields. The paths and their types are the same as the ones {@link EntityPathRegistry#register(Class)}
+ * would resolve.
+ */
+public interface EntityPathTable {
+
+    /**
+     * @return the entity class of the table
+     */
+    Class<?> getEntityClass();
+
+    /**
+     * @param path the string path. ex : person.address.city
+     * @return the queryDSL path, null if the path is not in the table
+     */
+    EntityPath<?> get(String path);
+
+    /**
+     * @return all the string paths of the table
+     */
+    Set<String> paths();
+}
@@ -0,0 +1,21 @@
+package com.ctl.springmongoquerydsl.jackson;
+
+import com.querydsl.core.types.Path;
+
+/**
+ * Tell whether a path can be answered from an index of its collection
+ */
+@FunctionalInterface
+public interface IndexedPaths {
+
+    /**
+     * all the paths are considered as indexed
+     */
+    IndexedPaths ALL = path -> true;
+
+    /**
+     * @param path the queryDSL path
+     * @return true if the path is the first key of an index
+     */
+    boolean isIndexedPath(Path<?> path);
+}
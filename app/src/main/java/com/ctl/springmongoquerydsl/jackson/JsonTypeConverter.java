@@ -0,0 +1,339 @@
+package com.ctl.springmongoquerydsl.jackson;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.drapostolos.typeparser.TypeParser;
+import org.bson.types.ObjectId;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.DoubleFunction;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+
+/**
+ * Permit to transform an a string or integer value into the specified type.
+ * <p>
+ * A {@link ValueConverter} is resolved once per target type and reused for each value.
+ */
+public class JsonTypeConverter {
+
+    private TypeParser parser;
+
+    /**
+     * the converter of each target type
+     */
+    private final ConcurrentMap<Class<?>, ValueConverter<?>> converters = new ConcurrentHashMap<>();
+
+    /**
+     * Default constructor of {@link JsonTypeConverter}
+     */
+    public JsonTypeConverter() {
+        // create a TypeParser instance with default settings.
+        parser = TypeParser.newBuilder()
+                .build();
+    }
+
+    /**
+     * Convert the specified string into the specified type
+     *
+     * @param value the string value
+     * @param type  expected type
+     * @return the converted object
+     */
+    public <T> T convert(String value, Class<T> type) {
+        return getConverter(type).fromText(value);
+    }
+
+    /**
+     * Convert the specified integer into the specified type
+     *
+     * @param value the integer value
+     * @param type  expected type
+     * @return the converted object
+     */
+    public <T> T convert(Integer value, Class<T> type) {
+        return getConverter(type).fromLong(value);
+    }
+
+    /**
+     * Convert the specified json node into the specified type, using its native number and boolean values
+     *
+     * @param value the json node
+     * @param type  expected type
+     * @return the converted object
+     */
+    public <T> T convert(JsonNode value, Class<T> type) {
+        ValueConverter<T> valueConverter = getConverter(type);
+        switch (value.getNodeType()) {
+            case NUMBER:
+                if (value.isIntegralNumber() && value.canConvertToLong()) {
+                    return valueConverter.fromLong(value.longValue());
+                } else if (value.isDouble()) {
+                    return valueConverter.fromDouble(value.doubleValue());
+                }
+                return valueConverter.fromText(value.asText());
+            case BOOLEAN:
+                return valueConverter.fromBoolean(value.booleanValue());
+            case STRING:
+                return valueConverter.fromText(value.textValue());
+            default:
+                return valueConverter.fromText(value.asText());
+        }
+    }
+
+    /**
+     * Convert the current token of the json parser into the specified type, the same way
+     * {@link #convert(JsonNode, Class)} converts the equivalent json node
+     *
+     * @param parser the json parser, positioned on the value
+     * @param type   expected type
+     * @return the converted object
+     */
+    public <T> T convert(JsonParser parser, Class<T> type) throws IOException {
+        ValueConverter<T> valueConverter = getConverter(type);
+        switch (parser.getCurrentToken()) {
+            case VALUE_NUMBER_INT:
+                JsonParser.NumberType numberType = parser.getNumberType();
+                if (numberType == JsonParser.NumberType.INT || numberType == JsonParser.NumberType.LONG) {
+                    return valueConverter.fromLong(parser.getLongValue());
+                }
+                return valueConverter.fromText(parser.getNumberValue().toString());
+            case VALUE_NUMBER_FLOAT:
+                return valueConverter.fromDouble(parser.getDoubleValue());
+            case VALUE_TRUE:
+                return valueConverter.fromBoolean(true);
+            case VALUE_FALSE:
+                return valueConverter.fromBoolean(false);
+            case START_OBJECT:
+            case START_ARRAY:
+                // containers have no text value
+                parser.skipChildren();
+                return valueConverter.fromText("");
+            default:
+                return valueConverter.fromText(parser.getText());
+        }
+    }
+
+    /**
+     * Get the converter of the specified type, it is resolved on the first call
+     *
+     * @param type expected type
+     * @return the converter
+     */
+    @SuppressWarnings("unchecked")
+    public <T> ValueConverter<T> getConverter(Class<T> type) {
+        ValueConverter<?> valueConverter = converters.get(type);
+        if (valueConverter == null) {
+            valueConverter = converters.computeIfAbsent(type, this::createConverter);
+        }
+        return (ValueConverter<T>) valueConverter;
+    }
+
+    /**
+     * Create the converter of the specified type
+     */
+    @SuppressWarnings("unchecked")
+    protected ValueConverter<?> createConverter(Class<?> type) {
+        if (type.equals(String.class)) {
+            return new StringConverter();
+        } else if (type.equals(Integer.class) || type.equals(int.class)) {
+            return new IntegralConverter<>(type, Integer::valueOf, v -> (int) v, Integer.MIN_VALUE, Integer.MAX_VALUE);
+        } else if (type.equals(Long.class) || type.equals(long.class)) {
+            return new IntegralConverter<>(type, Long::valueOf, v -> v, Long.MIN_VALUE, Long.MAX_VALUE);
+        } else if (type.equals(Short.class) || type.equals(short.class)) {
+            return new IntegralConverter<>(type, Short::valueOf, v -> (short) v, Short.MIN_VALUE, Short.MAX_VALUE);
+        } else if (type.equals(Byte.class) || type.equals(byte.class)) {
+            return new IntegralConverter<>(type, Byte::valueOf, v -> (byte) v, Byte.MIN_VALUE, Byte.MAX_VALUE);
+        } else if (type.equals(Double.class) || type.equals(double.class)) {
+            return new DecimalConverter<>(type, Double::valueOf, v -> v, v -> (double) v);
+        } else if (type.equals(Float.class) || type.equals(float.class)) {
+            return new DecimalConverter<>(type, Float::valueOf, v -> (float) v, v -> (float) v);
+        } else if (type.equals(BigDecimal.class)) {
+            return new DecimalConverter<>(type, BigDecimal::new, BigDecimal::valueOf, BigDecimal::valueOf);
+        } else if (type.equals(BigInteger.class)) {
+            return new IntegralConverter<>(type, BigInteger::new, BigInteger::valueOf, Long.MIN_VALUE, Long.MAX_VALUE);
+        } else if (type.equals(Boolean.class) || type.equals(boolean.class)) {
+            return new BooleanConverter();
+        } else if (type.isEnum()) {
+            return new EnumConverter(type);
+        } else if (type.equals(Date.class)) {
+            return new TemporalConverter<>(value -> new Date(Instant.parse(value).toEpochMilli()), Date::new);
+        } else if (type.equals(Instant.class)) {
+            return new TemporalConverter<>(Instant::parse, Instant::ofEpochMilli);
+        } else if (type.equals(LocalDate.class)) {
+            return (ValueConverter<LocalDate>) LocalDate::parse;
+        } else if (type.equals(ObjectId.class)) {
+            return (ValueConverter<ObjectId>) ObjectId::new;
+        }
+        return new TypeParserConverter<>(type);
+    }
+
+    /**
+     * Fallback on the generic {@link TypeParser}
+     */
+    private class TypeParserConverter<T> implements ValueConverter<T> {
+
+        final Class<T> type;
+
+        TypeParserConverter(Class<T> type) {
+            this.type = type;
+        }
+
+        @Override
+        public T fromText(String value) {
+            return parser.parse(value, type);
+        }
+    }
+
+    private static class StringConverter implements ValueConverter<String> {
+
+        @Override
+        public String fromText(String value) {
+            return value;
+        }
+    }
+
+    private class BooleanConverter extends TypeParserConverter<Boolean> {
+
+        BooleanConverter() {
+            super(Boolean.class);
+        }
+
+        @Override
+        public Boolean fromText(String value) {
+            if ("true".equals(value)) {
+                return Boolean.TRUE;
+            } else if ("false".equals(value)) {
+                return Boolean.FALSE;
+            }
+            return super.fromText(value);
+        }
+
+        @Override
+        public Boolean fromBoolean(boolean value) {
+            return value;
+        }
+    }
+
+    /**
+     * Integral numbers : the native value is used when it fits in the target type
+     */
+    private class IntegralConverter<T> extends TypeParserConverter<T> {
+
+        private final Function<String, T> textParser;
+        private final LongFunction<T> fromLong;
+        private final long min;
+        private final long max;
+
+        @SuppressWarnings("unchecked")
+        IntegralConverter(Class<?> type, Function<String, T> textParser, LongFunction<T> fromLong, long min, long max) {
+            super((Class<T>) type);
+            this.textParser = textParser;
+            this.fromLong = fromLong;
+            this.min = min;
+            this.max = max;
+        }
+
+        @Override
+        public T fromText(String value) {
+            try {
+                return textParser.apply(value);
+            } catch (NumberFormatException e) {
+                // let the type parser deal with the lenient cases or report the error
+                return super.fromText(value);
+            }
+        }
+
+        @Override
+        public T fromLong(long value) {
+            if (value < min || value > max) {
+                return fromText(Long.toString(value));
+            }
+            return fromLong.apply(value);
+        }
+    }
+
+    /**
+     * Floating point numbers : the native values are used directly
+     */
+    private class DecimalConverter<T> extends TypeParserConverter<T> {
+
+        private final Function<String, T> textParser;
+        private final DoubleFunction<T> fromDouble;
+        private final LongFunction<T> fromLong;
+
+        @SuppressWarnings("unchecked")
+        DecimalConverter(Class<?> type, Function<String, T> textParser, DoubleFunction<T> fromDouble, LongFunction<T> fromLong) {
+            super((Class<T>) type);
+            this.textParser = textParser;
+            this.fromDouble = fromDouble;
+            this.fromLong = fromLong;
+        }
+
+        @Override
+        public T fromText(String value) {
+            try {
+                return textParser.apply(value);
+            } catch (NumberFormatException e) {
+                return super.fromText(value);
+            }
+        }
+
+        @Override
+        public T fromDouble(double value) {
+            return fromDouble.apply(value);
+        }
+
+        @Override
+        public T fromLong(long value) {
+            return fromLong.apply(value);
+        }
+    }
+
+    private class EnumConverter<E extends Enum<E>> extends TypeParserConverter<E> {
+
+        EnumConverter(Class<E> type) {
+            super(type);
+        }
+
+        @Override
+        public E fromText(String value) {
+            try {
+                return Enum.valueOf(type, value);
+            } catch (IllegalArgumentException e) {
+                return super.fromText(value);
+            }
+        }
+    }
+
+    /**
+     * Dates : ISO-8601 text or number of milliseconds since the epoch
+     */
+    private static class TemporalConverter<T> implements ValueConverter<T> {
+
+        private final Function<String, T> textParser;
+        private final LongFunction<T> fromEpochMilli;
+
+        TemporalConverter(Function<String, T> textParser, LongFunction<T> fromEpochMilli) {
+            this.textParser = textParser;
+            this.fromEpochMilli = fromEpochMilli;
+        }
+
+        @Override
+        public T fromText(String value) {
+            return textParser.apply(value);
+        }
+
+        @Override
+        public T fromLong(long value) {
+            return fromEpochMilli.apply(value);
+        }
+    }
+}
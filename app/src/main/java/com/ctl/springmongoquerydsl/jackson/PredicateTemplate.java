@@ -0,0 +1,167 @@
+package com.ctl.springmongoquerydsl.jackson;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.Expressions;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Optional;
+
+/**
+ * A compiled json predicate: the paths and operators are resolved once, only the constants are bound per request.
+ * <p>
+ * A template can only be bound to a json node having the same shape as the one it has been compiled from
+ * (see {@link PredicateTemplateCache#shapeOf(JsonNode, DefaultQueryDslDeserializer)}).
+ */
+public abstract class PredicateTemplate {
+
+    /**
+     * Bind the constants of the specified json node into the template
+     *
+     * @param node         the json node, with the same shape as the compiled one
+     * @param deserializer the deserializer used to convert the constants
+     * @return the queryDSL predicate
+     */
+    public abstract BooleanExpression bind(JsonNode node, DefaultQueryDslDeserializer<?> deserializer);
+
+    /**
+     * Compile the template of the specified json predicate
+     *
+     * @param rootNode     the json predicate
+     * @param entityClass  the root entity class
+     * @param deserializer the deserializer resolving the paths and operators
+     * @return the compiled template
+     */
+    public static PredicateTemplate compile(JsonNode rootNode, Class<?> entityClass, DefaultQueryDslDeserializer<?> deserializer) {
+        List<PredicateTemplate> children = new ArrayList<>();
+        Iterator<Entry<String, JsonNode>> fields = rootNode.fields();
+        while (fields.hasNext()) {
+            Entry<String, JsonNode> field = fields.next();
+            children.add(compileField(field.getKey(), field.getValue(), entityClass, deserializer));
+        }
+        return new AllOfTemplate(children.toArray(new PredicateTemplate[children.size()]));
+    }
+
+    private static PredicateTemplate compileField(String key, JsonNode nodeValue, Class<?> entityClass,
+                                                  DefaultQueryDslDeserializer<?> deserializer) {
+        Optional<QueryDslOperator> operator = deserializer.getOperator(key);
+        if (operator.isPresent()) {
+            return compileOrAnd(nodeValue, operator.get(), entityClass, deserializer);
+        }
+        EntityPath<?> entityPath = deserializer.buildPath(key, entityClass);
+        if (!nodeValue.isObject()) {
+            return new BaseTemplate(entityPath, null, QueryDslOperator.EQ);
+        }
+        QueryDslOperator[] operators = new QueryDslOperator[nodeValue.size()];
+        QueryDslOperator valueOp = QueryDslOperator.EQ;
+        Iterator<String> names = nodeValue.fieldNames();
+        for (int i = 0; names.hasNext(); i++) {
+            valueOp = QueryDslOperator.getFromJson(names.next());
+            operators[i] = valueOp;
+        }
+        return new BaseTemplate(entityPath, operators, valueOp);
+    }
+
+    private static PredicateTemplate compileOrAnd(JsonNode nodeValue, QueryDslOperator operator, Class<?> entityClass,
+                                                  DefaultQueryDslDeserializer<?> deserializer) {
+        if (!nodeValue.isArray()) {
+            throw new IllegalStateException("expected to have an array type instead of " + nodeValue.toString());
+        }
+        PredicateTemplate[] elements = new PredicateTemplate[nodeValue.size()];
+        for (int i = 0; i < elements.length; i++) {
+            JsonNode element = nodeValue.get(i);
+            if (!element.isObject()) {
+                throw new IllegalStateException("expected to have an object instead of " + element.toString());
+            }
+            elements[i] = compile(element, entityClass, deserializer);
+        }
+        if (!operator.equals(QueryDslOperator.AND) && !operator.equals(QueryDslOperator.OR)) {
+            throw new IllegalStateException("Don't supported operator here : " + operator);
+        }
+        return new OrAndTemplate(operator, elements);
+    }
+
+    /**
+     * Conjunction of the predicates of each field of a json object
+     */
+    static final class AllOfTemplate extends PredicateTemplate {
+
+        private final PredicateTemplate[] fields;
+
+        AllOfTemplate(PredicateTemplate[] fields) {
+            this.fields = fields;
+        }
+
+        @Override
+        public BooleanExpression bind(JsonNode node, DefaultQueryDslDeserializer<?> deserializer) {
+            BooleanExpression[] expressions = new BooleanExpression[fields.length];
+            Iterator<JsonNode> values = node.elements();
+            for (int i = 0; i < fields.length; i++) {
+                expressions[i] = fields[i].bind(values.next(), deserializer);
+            }
+            return Expressions.allOf(expressions);
+        }
+    }
+
+    /**
+     * $and / $or of an array of json objects
+     */
+    static final class OrAndTemplate extends PredicateTemplate {
+
+        private final QueryDslOperator operator;
+        private final PredicateTemplate[] elements;
+
+        OrAndTemplate(QueryDslOperator operator, PredicateTemplate[] elements) {
+            this.operator = operator;
+            this.elements = elements;
+        }
+
+        @Override
+        public BooleanExpression bind(JsonNode node, DefaultQueryDslDeserializer<?> deserializer) {
+            BooleanExpression[] expressions = new BooleanExpression[elements.length];
+            for (int i = 0; i < elements.length; i++) {
+                expressions[i] = elements[i].bind(node.get(i), deserializer);
+            }
+            return operator.equals(QueryDslOperator.AND) ? Expressions.allOf(expressions) : Expressions.anyOf(expressions);
+        }
+    }
+
+    /**
+     * path - operator(s) - value(s)
+     */
+    static final class BaseTemplate extends PredicateTemplate {
+
+        private final EntityPath<?> entityPath;
+        /**
+         * the operator of each field of the value object, null if the value is not an object
+         */
+        private final QueryDslOperator[] operators;
+        private final QueryDslOperator valueOp;
+
+        BaseTemplate(EntityPath<?> entityPath, QueryDslOperator[] operators, QueryDslOperator valueOp) {
+            this.entityPath = entityPath;
+            this.operators = operators;
+            this.valueOp = valueOp;
+        }
+
+        @Override
+        public BooleanExpression bind(JsonNode node, DefaultQueryDslDeserializer<?> deserializer) {
+            List<Expression> expressions = new ArrayList<>();
+            expressions.add(entityPath);
+            if (operators == null) {
+                expressions.add(deserializer.createValue(node, entityPath));
+            } else {
+                Iterator<JsonNode> values = node.elements();
+                for (QueryDslOperator operator : operators) {
+                    deserializer.addValues(operator, values.next(), entityPath, expressions);
+                }
+            }
+            return Expressions.predicate(valueOp.getDSLOperator(), expressions.toArray(new Expression[expressions.size()]));
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.ctl.springmongoquerydsl.jackson;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import lombok.Value;
+
+import java.util.Iterator;
+import java.util.Map.Entry;
+
+/**
+ * Bounded cache of compiled {@link PredicateTemplate}, keyed by the shape of the json predicate.
+ * <p>
+ * The shape is the json structure without its literals: field paths, operators and nesting. Two predicates
+ * differing only by their constants share the same template.
+ */
+public class PredicateTemplateCache {
+
+    private final Cache<ShapeKey, PredicateTemplate> templates;
+
+    /**
+     * Default constructor of {@link PredicateTemplateCache}
+     *
+     * @param maximumSize the maximum number of templates kept in the cache
+     */
+    public PredicateTemplateCache(long maximumSize) {
+        this.templates = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Get the template of the specified json predicate, compiling it if needed
+     *
+     * @param rootNode     the json predicate
+     * @param entityClass  the root entity class
+     * @param deserializer the deserializer used to compile the template
+     * @return the compiled template
+     */
+    public PredicateTemplate getTemplate(JsonNode rootNode, Class<?> entityClass, DefaultQueryDslDeserializer<?> deserializer) {
+        ShapeKey key = new ShapeKey(entityClass, shapeOf(rootNode, deserializer));
+        PredicateTemplate template = templates.getIfPresent(key);
+        if (template == null) {
+            template = PredicateTemplate.compile(rootNode, entityClass, deserializer);
+            templates.put(key, template);
+        }
+        return template;
+    }
+
+    /**
+     * @return the hit / miss / eviction counters of the cache
+     */
+    public CacheStats getStats() {
+        return templates.stats();
+    }
+
+    /**
+     * @return the current number of templates in the cache
+     */
+    public long size() {
+        return templates.size();
+    }
+
+    public void clear() {
+        templates.invalidateAll();
+    }
+
+    /**
+     * Compute the shape of a json predicate: keys and nesting are kept, literals are stripped out
+     *
+     * @param rootNode     the json predicate
+     * @param deserializer the deserializer telling operators from field paths
+     * @return the shape
+     */
+    public static String shapeOf(JsonNode rootNode, DefaultQueryDslDeserializer<?> deserializer) {
+        StringBuilder shape = new StringBuilder();
+        appendObjectShape(rootNode, deserializer, shape);
+        return shape.toString();
+    }
+
+    private static void appendObjectShape(JsonNode node, DefaultQueryDslDeserializer<?> deserializer, StringBuilder shape) {
+        shape.append('{');
+        Iterator<Entry<String, JsonNode>> fields = node.fields();
+        while (fields.hasNext()) {
+            Entry<String, JsonNode> field = fields.next();
+            appendKey(field.getKey(), shape);
+            JsonNode value = field.getValue();
+            if (deserializer.getOperator(field.getKey()).isPresent()) {
+                appendOperandsShape(value, deserializer, shape);
+            } else if (value.isObject()) {
+                // { "$lt" : "value" } : only the operators matter
+                shape.append('{');
+                Iterator<String> operators = value.fieldNames();
+                while (operators.hasNext()) {
+                    appendKey(operators.next(), shape);
+                }
+                shape.append('}');
+            } else {
+                shape.append('?');
+            }
+        }
+        shape.append('}');
+    }
+
+    private static void appendOperandsShape(JsonNode value, DefaultQueryDslDeserializer<?> deserializer, StringBuilder shape) {
+        if (!value.isArray()) {
+            shape.append('?');
+            return;
+        }
+        shape.append('[');
+        for (JsonNode element : value) {
+            if (element.isObject()) {
+                appendObjectShape(element, deserializer, shape);
+            } else {
+                shape.append('?');
+            }
+        }
+        shape.append(']');
+    }
+
+    private static void appendKey(String key, StringBuilder shape) {
+        // length prefixed so that keys never need to be escaped
+        shape.append(key.length()).append(':').append(key);
+    }
+
+    /**
+     * Key of a template: the root entity and the shape of the json predicate
+     */
+    @Value
+    private static class ShapeKey {
+        Class<?> entityClass;
+        String shape;
+    }
+}
@@ -0,0 +1,219 @@
+package com.ctl.springmongoquerydsl.jackson;
+
+import com.ctl.springmongoquerydsl.query.InvalidQueryException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.querydsl.core.types.Path;
+
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.Map.Entry;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Bounds of a json predicate : nesting depth of $and / $or, number of conditions, number of values of a $in and
+ * number of regex conditions ($like, $contains...) on unindexed paths.
+ * <p>
+ * The bounds are checked while the predicate is read, a {@link Budget} is used per predicate : the streaming
+ * parser stops at the first value over the limits, the tree is read with a {@link #bound(JsonParser) bounded parser}
+ * and checked before its values are converted.
+ */
+public class QueryComplexityLimits {
+
+    /**
+     * no bound
+     */
+    public static final QueryComplexityLimits UNLIMITED = new QueryComplexityLimits(Integer.MAX_VALUE, Integer.MAX_VALUE,
+            Integer.MAX_VALUE, Integer.MAX_VALUE);
+
+    /**
+     * the operators evaluated as a regex by mongo
+     */
+    private static final Set<QueryDslOperator> REGEX_OPERATORS = EnumSet.of(QueryDslOperator.EQ_IC, QueryDslOperator.LIKE,
+            QueryDslOperator.STARTS_WITH, QueryDslOperator.ENDS_WITH, QueryDslOperator.STRING_CONTAINS,
+            QueryDslOperator.STRING_CONTAINS_IC);
+
+    private final int maxDepth;
+    private final int maxNodes;
+    private final int maxInSize;
+    private final int maxUnindexedRegex;
+
+    private IndexedPaths indexedPaths = IndexedPaths.ALL;
+
+    /**
+     * Default constructor of {@link QueryComplexityLimits}
+     *
+     * @param maxDepth          the maximum nesting of objects ($and / $or elements), the root object being 1
+     * @param maxNodes          the maximum number of conditions and $and / $or
+     * @param maxInSize         the maximum number of values of a $in / $nin
+     * @param maxUnindexedRegex the maximum number of regex conditions on unindexed paths
+     */
+    public QueryComplexityLimits(int maxDepth, int maxNodes, int maxInSize, int maxUnindexedRegex) {
+        this.maxDepth = maxDepth;
+        this.maxNodes = maxNodes;
+        this.maxInSize = maxInSize;
+        this.maxUnindexedRegex = maxUnindexedRegex;
+    }
+
+    /**
+     * Set the indexes used to find the regex conditions on unindexed paths, all the paths are indexed by default
+     *
+     * @param indexedPaths the indexed paths
+     */
+    public void setIndexedPaths(IndexedPaths indexedPaths) {
+        this.indexedPaths = indexedPaths;
+    }
+
+    /**
+     * @param indexedPaths the indexed paths of another entity
+     * @return the same bounds, with the indexes of the other entity
+     */
+    public QueryComplexityLimits withIndexedPaths(IndexedPaths indexedPaths) {
+        QueryComplexityLimits limits = new QueryComplexityLimits(maxDepth, maxNodes, maxInSize, maxUnindexedRegex);
+        limits.setIndexedPaths(indexedPaths);
+        return limits;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public int getMaxNodes() {
+        return maxNodes;
+    }
+
+    public int getMaxInSize() {
+        return maxInSize;
+    }
+
+    public int getMaxUnindexedRegex() {
+        return maxUnindexedRegex;
+    }
+
+    /**
+     * Bound the json tree read from the specified parser, so that a predicate far over the limits is rejected before
+     * the whole tree is built
+     *
+     * @param parser the parser of the predicate
+     * @return the parser to read the tree from
+     */
+    public JsonParser bound(JsonParser parser) {
+        return this == UNLIMITED ? parser : new BoundedJsonParser(parser, this);
+    }
+
+    /**
+     * @param operator the json operator
+     * @return true if mongo evaluates the operator as a regex
+     */
+    public static boolean isRegex(QueryDslOperator operator) {
+        return REGEX_OPERATORS.contains(operator);
+    }
+
+    /**
+     * @return a new budget, for one predicate
+     */
+    public Budget newBudget() {
+        return new Budget();
+    }
+
+    /**
+     * Check a json predicate tree, before its values are converted
+     *
+     * @param rootNode     the json predicate
+     * @param deserializer the deserializer resolving the paths and operators
+     * @param entityClass  the root entity class
+     * @throws InvalidQueryException if the predicate is over the limits
+     */
+    public void check(JsonNode rootNode, DefaultQueryDslDeserializer<?> deserializer, Class<?> entityClass) {
+        checkObject(rootNode, deserializer, entityClass, newBudget());
+    }
+
+    private void checkObject(JsonNode node, DefaultQueryDslDeserializer<?> deserializer, Class<?> entityClass, Budget budget) {
+        budget.enter();
+        Iterator<Entry<String, JsonNode>> fields = node.fields();
+        while (fields.hasNext()) {
+            Entry<String, JsonNode> field = fields.next();
+            JsonNode value = field.getValue();
+            Optional<QueryDslOperator> operator = deserializer.getOperator(field.getKey());
+            if (operator.isPresent()) {
+                budget.node(operator.get(), null);
+                for (JsonNode element : value) {
+                    if (element.isObject()) {
+                        checkObject(element, deserializer, entityClass, budget);
+                    }
+                }
+                continue;
+            }
+            Path<?> path = deserializer.buildPath(field.getKey(), entityClass);
+            if (!value.isObject()) {
+                budget.node(QueryDslOperator.EQ, path);
+                continue;
+            }
+            Iterator<Entry<String, JsonNode>> operations = value.fields();
+            while (operations.hasNext()) {
+                Entry<String, JsonNode> operation = operations.next();
+                QueryDslOperator valueOp = QueryDslOperator.findFromJson(operation.getKey()).orElse(null);
+                budget.node(valueOp, path);
+                if (valueOp == QueryDslOperator.IN || valueOp == QueryDslOperator.NOT_IN) {
+                    budget.inSize(operation.getValue().size());
+                }
+            }
+        }
+        budget.exit();
+    }
+
+    /**
+     * The running counts of one predicate
+     */
+    public class Budget {
+
+        private int depth;
+        private int nodes;
+        private int unindexedRegex;
+
+        /**
+         * Enter a json object
+         */
+        public void enter() {
+            if (++depth > maxDepth) {
+                throw new InvalidQueryException("The predicate is nested deeper than " + maxDepth + " levels");
+            }
+        }
+
+        /**
+         * Exit a json object
+         */
+        public void exit() {
+            depth--;
+        }
+
+        /**
+         * Count a condition or an $and / $or
+         *
+         * @param operator the operator, null if unknown
+         * @param path     the path of the condition, null for $and / $or
+         */
+        public void node(QueryDslOperator operator, Path<?> path) {
+            if (++nodes > maxNodes) {
+                throw new InvalidQueryException("The predicate has more than " + maxNodes + " conditions");
+            }
+            if (path != null && operator != null && isRegex(operator) && !indexedPaths.isIndexedPath(path)
+                    && ++unindexedRegex > maxUnindexedRegex) {
+                throw new InvalidQueryException("The predicate has more than " + maxUnindexedRegex
+                        + " regex conditions on unindexed paths");
+            }
+        }
+
+        /**
+         * Check the number of values of a $in / $nin
+         *
+         * @param size the number of values read so far
+         */
+        public void inSize(int size) {
+            if (size > maxInSize) {
+                throw new InvalidQueryException("The $in / $nin can not have more than " + maxInSize + " values");
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.ctl.springmongoquerydsl.jackson;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The deserializer of each exposed entity, registered at startup : a request only looks up its entity class.
+ */
+public class QueryDslDeserializerRegistry {
+
+    private final Map<Class<?>, DefaultQueryDslDeserializer<?>> deserializers = new HashMap<>();
+
+    /**
+     * Register the deserializer of an entity, replacing the previous one
+     *
+     * @param deserializer the deserializer, see {@link DefaultQueryDslDeserializer#getEntityClass()}
+     */
+    public void register(DefaultQueryDslDeserializer<?> deserializer) {
+        deserializers.put(deserializer.getEntityClass(), deserializer);
+    }
+
+    /**
+     * @param entityClass the root entity class
+     * @return the deserializer of the entity
+     * @throws IllegalArgumentException if the entity has no deserializer
+     */
+    public DefaultQueryDslDeserializer<?> get(Class<?> entityClass) {
+        DefaultQueryDslDeserializer<?> deserializer = deserializers.get(entityClass);
+        if (deserializer == null) {
+            throw new IllegalArgumentException("No json predicate deserializer for the entity " + entityClass.getName());
+        }
+        return deserializer;
+    }
+
+    /**
+     * @return the entities with a deserializer
+     */
+    public Set<Class<?>> getEntityClasses() {
+        return Collections.unmodifiableSet(deserializers.keySet());
+    }
+}
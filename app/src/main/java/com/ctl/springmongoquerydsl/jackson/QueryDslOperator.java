@@ -7,6 +7,10 @@ package com.ctl.springmongoquerydsl.jackson;
 import com.querydsl.core.types.Operator;
 import com.querydsl.core.types.Ops;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
 /**
  * This class represents all queryDSL operators and the associated Json operator.
  * <p>
@@ -31,6 +35,19 @@ public enum QueryDslOperator {
     STRING_CONTAINS("$contains", Ops.STRING_CONTAINS),
     STRING_CONTAINS_IC("$containsIc", Ops.STRING_CONTAINS_IC);
 
+    /**
+     * lookup tables, the optional values are shared so that a lookup never allocates
+     */
+    private static final Map<String, Optional<QueryDslOperator>> BY_JSON = new HashMap<>();
+    private static final Map<Operator, Optional<QueryDslOperator>> BY_DSL = new HashMap<>();
+
+    static {
+        for (QueryDslOperator operator : values()) {
+            BY_JSON.put(operator.json, Optional.of(operator));
+            BY_DSL.put(operator.DSLOperator, Optional.of(operator));
+        }
+    }
+
     /**
      * the associated json operator
      */
@@ -58,12 +75,20 @@ public enum QueryDslOperator {
      * @return the expression operator
      */
     public static QueryDslOperator getFromDsl(Operator op) {
-        for (QueryDslOperator queryDslOperator : QueryDslOperator.values()) {
-            if (queryDslOperator.getDSLOperator().equals(op)) {
-                return queryDslOperator;
-            }
+        return findFromDsl(op).orElseThrow(() -> new IllegalArgumentException("Illegal operator " + op));
+    }
+
+    /**
+     * Find the expression operator of the specified queryDSL operator, without throwing if there is none
+     *
+     * @param op the queryDSL operator
+     * @return the expression operator, empty if the queryDSL operator has no json equivalent
+     */
+    public static Optional<QueryDslOperator> findFromDsl(Operator op) {
+        if (op == null) {
+            return Optional.empty();
         }
-        throw new IllegalArgumentException("Illegal operator " + op);
+        return BY_DSL.getOrDefault(op, Optional.empty());
     }
 
     /**
@@ -73,12 +98,20 @@ public enum QueryDslOperator {
      * @return the expression operator
      */
     public static QueryDslOperator getFromJson(String jsonValue) {
-        for (QueryDslOperator expressionOperator : QueryDslOperator.values()) {
-            if (expressionOperator.getJson().equals(jsonValue)) {
-                return expressionOperator;
-            }
+        return findFromJson(jsonValue).orElseThrow(() -> new IllegalArgumentException("QueryDSL operator " + jsonValue + " unknown."));
+    }
+
+    /**
+     * Find the expression operator from the json, without throwing if there is none
+     *
+     * @param jsonValue the json value of the operator
+     * @return the expression operator, empty if the json value is not an operator (ex : a field path)
+     */
+    public static Optional<QueryDslOperator> findFromJson(String jsonValue) {
+        if (jsonValue == null) {
+            return Optional.empty();
         }
-        throw new IllegalArgumentException("QueryDSL operator " + jsonValue + " unknown.");
+        return BY_JSON.getOrDefault(jsonValue, Optional.empty());
     }
 
     public String getJson() {
@@ -0,0 +1,178 @@
+package com.ctl.springmongoquerydsl.jackson;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.Expressions;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static com.querydsl.core.types.dsl.Expressions.constant;
+
+/**
+ * Build a queryDSL predicate in a single pass over the tokens of a {@link JsonParser}.
+ * <p>
+ * It produces the same predicate as the tree based path of {@link DefaultQueryDslDeserializer}, without
+ * materializing the json tree: the values are converted from the native tokens the same way the json nodes are. One instance is used per predicate.
+ */
+public class StreamingPredicateReader {
+
+    private final DefaultQueryDslDeserializer<?> deserializer;
+    private final JsonParser parser;
+    private final Class<?> entityClass;
+
+    /**
+     * the complexity counts of the predicate, checked as the tokens are read
+     */
+    private final QueryComplexityLimits.Budget budget;
+
+    /**
+     * Default constructor of {@link StreamingPredicateReader}
+     *
+     * @param deserializer the deserializer resolving paths, operators and values
+     * @param parser       the json parser, positioned on the start of the predicate object
+     * @param entityClass  the root entity class
+     */
+    public StreamingPredicateReader(DefaultQueryDslDeserializer<?> deserializer, JsonParser parser, Class<?> entityClass) {
+        this.deserializer = deserializer;
+        this.parser = parser;
+        this.entityClass = entityClass;
+        QueryComplexityLimits limits = deserializer.getComplexityLimits();
+        this.budget = (limits == null ? QueryComplexityLimits.UNLIMITED : limits).newBudget();
+    }
+
+    /**
+     * Read the predicate object the parser is positioned on
+     *
+     * @return the queryDSL predicate
+     */
+    public BooleanExpression read() throws IOException {
+        if (parser.getCurrentToken() != JsonToken.START_OBJECT) {
+            throw new IllegalStateException("expected to have an object instead of " + parser.getCurrentToken());
+        }
+        return readPredicates();
+    }
+
+    /**
+     * Read all predicates of the current object, until its end
+     */
+    private BooleanExpression readPredicates() throws IOException {
+        budget.enter();
+        List<BooleanExpression> expressions = new ArrayList<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String key = parser.getCurrentName();
+            parser.nextToken();
+            expressions.add(readPredicate(key));
+        }
+        budget.exit();
+        return Expressions.allOf(expressions.toArray(new BooleanExpression[expressions.size()]));
+    }
+
+    /**
+     * Read the predicate of the specified key, the parser being on its value
+     */
+    private BooleanExpression readPredicate(String key) throws IOException {
+        Optional<QueryDslOperator> operator = deserializer.getOperator(key);
+        if (operator.isPresent()) {
+            return readOrAndPredicate(operator.get());
+        }
+        return readBasePredicate(deserializer.buildPath(key, entityClass));
+    }
+
+    /**
+     * Read an array of and, or predicates
+     */
+    private BooleanExpression readOrAndPredicate(QueryDslOperator operator) throws IOException {
+        budget.node(operator, null);
+        if (parser.getCurrentToken() != JsonToken.START_ARRAY) {
+            throw new IllegalStateException("expected to have an array type instead of " + parser.getText());
+        }
+        List<BooleanExpression> booleanExpressions = new ArrayList<>();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (parser.getCurrentToken() != JsonToken.START_OBJECT) {
+                throw new IllegalStateException("expected to have an object instead of " + parser.getText());
+            }
+            booleanExpressions.add(readPredicates());
+        }
+        BooleanExpression[] expressions = booleanExpressions.toArray(new BooleanExpression[booleanExpressions.size()]);
+        if (operator.equals(QueryDslOperator.AND)) {
+            return Expressions.allOf(expressions);
+        } else if (operator.equals(QueryDslOperator.OR)) {
+            return Expressions.anyOf(expressions);
+        } else {
+            throw new IllegalStateException("Don't supported operator here : " + operator);
+        }
+    }
+
+    /**
+     * Read a base predicate : path - operator - value
+     */
+    private BooleanExpression readBasePredicate(EntityPath entityPath) throws IOException {
+        List<Expression> expressions = new ArrayList<>();
+        expressions.add(entityPath);
+        QueryDslOperator valueOp = QueryDslOperator.EQ;
+        if (parser.getCurrentToken() == JsonToken.START_OBJECT) {
+            // it is an object like { "$lt" : "value" }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                valueOp = QueryDslOperator.getFromJson(parser.getCurrentName());
+                budget.node(valueOp, entityPath);
+                parser.nextToken();
+                readValues(valueOp, entityPath, expressions);
+            }
+        } else {
+            budget.node(valueOp, entityPath);
+            expressions.add(deserializer.createValue(parser, entityPath));
+        }
+        return Expressions.predicate(valueOp.getDSLOperator(), expressions.toArray(new Expression[expressions.size()]));
+    }
+
+    /**
+     * Read the value(s) associated to the specified operator
+     */
+    private void readValues(QueryDslOperator valueOp, EntityPath entityPath, List<Expression> expressions) throws IOException {
+        if (valueOp.equals(QueryDslOperator.BETWEEN)) {
+            readElements(() -> expressions.add(deserializer.createValue(parser, entityPath)));
+        } else if (valueOp.equals(QueryDslOperator.IN) || valueOp.equals(QueryDslOperator.NOT_IN)) {
+            List<Object> values = new ArrayList<>();
+            readElements(() -> {
+                // checked on each value, a too large $in is not read until its end
+                budget.inSize(values.size() + 1);
+                values.add(deserializer.convert(parser, entityPath.getType()));
+            });
+            expressions.add(constant(values));
+        } else {
+            expressions.add(deserializer.createValue(parser, entityPath));
+        }
+    }
+
+    /**
+     * Read each element of the current value, like {@link com.fasterxml.jackson.databind.JsonNode#elements()}:
+     * the elements of an object are its field values and a scalar value has no element.
+     */
+    private void readElements(ElementReader elementReader) throws IOException {
+        JsonToken token = parser.getCurrentToken();
+        if (token == JsonToken.START_ARRAY) {
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                elementReader.read();
+            }
+        } else if (token == JsonToken.START_OBJECT) {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                parser.nextToken();
+                elementReader.read();
+            }
+        }
+    }
+
+    /**
+     * Read the element the parser is positioned on
+     */
+    @FunctionalInterface
+    private interface ElementReader {
+        void read() throws IOException;
+    }
+}
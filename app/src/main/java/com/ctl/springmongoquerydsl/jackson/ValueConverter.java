@@ -0,0 +1,50 @@
+package com.ctl.springmongoquerydsl.jackson;
+
+/**
+ * Convert a json literal into a given type.
+ * <p>
+ * The numeric and boolean methods receive the native json values. By default they go through their text
+ * representation, a converter overrides them when it can do the conversion directly.
+ *
+ * @param <T> the target type
+ */
+public interface ValueConverter<T> {
+
+    /**
+     * Convert a json string
+     *
+     * @param value the string value
+     * @return the converted object
+     */
+    T fromText(String value);
+
+    /**
+     * Convert a json integral number
+     *
+     * @param value the number value
+     * @return the converted object
+     */
+    default T fromLong(long value) {
+        return fromText(Long.toString(value));
+    }
+
+    /**
+     * Convert a json floating point number
+     *
+     * @param value the number value
+     * @return the converted object
+     */
+    default T fromDouble(double value) {
+        return fromText(Double.toString(value));
+    }
+
+    /**
+     * Convert a json boolean
+     *
+     * @param value the boolean value
+     * @return the converted object
+     */
+    default T fromBoolean(boolean value) {
+        return fromText(Boolean.toString(value));
+    }
+}
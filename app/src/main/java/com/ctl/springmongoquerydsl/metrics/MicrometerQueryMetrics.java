@@ -0,0 +1,129 @@
+package com.ctl.springmongoquerydsl.metrics;
+
+import com.ctl.springmongoquerydsl.jackson.QueryDslOperator;
+import com.querydsl.core.types.Constant;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Predicate;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link QueryMetrics} recorded in a micrometer registry :
+ * <ul>
+ * <li>querydsl.parse, querydsl.build and querydsl.execute (tagged by operation) timers</li>
+ * <li>querydsl.predicate.depth, querydsl.predicate.nodes and querydsl.predicate.in.size histograms</li>
+ * <li>querydsl.operator counter, tagged by json operator</li>
+ * </ul>
+ */
+public class MicrometerQueryMetrics implements QueryMetrics {
+
+    private final MeterRegistry registry;
+
+    private final Timer parseTimer;
+    private final Timer buildTimer;
+    private final ConcurrentMap<String, Timer> executeTimers = new ConcurrentHashMap<>();
+
+    private final DistributionSummary depth;
+    private final DistributionSummary nodes;
+    private final DistributionSummary inSize;
+
+    private final Map<QueryDslOperator, Counter> operators = new EnumMap<>(QueryDslOperator.class);
+
+    /**
+     * Default constructor of {@link MicrometerQueryMetrics}
+     *
+     * @param registry the meter registry
+     */
+    public MicrometerQueryMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.parseTimer = Timer.builder("querydsl.parse")
+                .description("json parsing of the predicates")
+                .register(registry);
+        this.buildTimer = Timer.builder("querydsl.build")
+                .description("build of the queryDSL predicates : paths, operators and value conversions")
+                .register(registry);
+        this.depth = DistributionSummary.builder("querydsl.predicate.depth")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.nodes = DistributionSummary.builder("querydsl.predicate.nodes")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.inSize = DistributionSummary.builder("querydsl.predicate.in.size")
+                .publishPercentileHistogram()
+                .register(registry);
+        for (QueryDslOperator operator : QueryDslOperator.values()) {
+            operators.put(operator, Counter.builder("querydsl.operator")
+                    .tag("operator", operator.getJson())
+                    .register(registry));
+        }
+    }
+
+    @Override
+    public long start() {
+        return System.nanoTime();
+    }
+
+    @Override
+    public long parsed(long start) {
+        long now = System.nanoTime();
+        parseTimer.record(now - start, TimeUnit.NANOSECONDS);
+        return now;
+    }
+
+    @Override
+    public long built(long start, Predicate predicate) {
+        long now = System.nanoTime();
+        buildTimer.record(now - start, TimeUnit.NANOSECONDS);
+        if (predicate != null) {
+            int[] count = new int[1];
+            depth.record(visit(predicate, count));
+            nodes.record(count[0]);
+        }
+        return now;
+    }
+
+    @Override
+    public void executed(long start, String operation) {
+        Timer timer = executeTimers.computeIfAbsent(operation, key -> Timer.builder("querydsl.execute")
+                .description("execution of the queries")
+                .tag("operation", key)
+                .register(registry));
+        timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Count the operators of the predicate and the values of its in
+     *
+     * @return the depth of the predicate
+     */
+    private int visit(Expression<?> expression, int[] count) {
+        if (!(expression instanceof Operation)) {
+            return 0;
+        }
+        Operation<?> operation = (Operation<?>) expression;
+        count[0]++;
+        Optional<QueryDslOperator> operator = QueryDslOperator.findFromDsl(operation.getOperator());
+        operator.ifPresent(op -> operators.get(op).increment());
+        if ((operation.getOperator() == Ops.IN || operation.getOperator() == Ops.NOT_IN) && operation.getArgs().size() == 2
+                && operation.getArg(1) instanceof Constant && ((Constant<?>) operation.getArg(1)).getConstant() instanceof Collection) {
+            inSize.record(((Collection<?>) ((Constant<?>) operation.getArg(1)).getConstant()).size());
+        }
+        int maxDepth = 0;
+        for (Expression<?> arg : operation.getArgs()) {
+            maxDepth = Math.max(maxDepth, visit(arg, count));
+        }
+        return maxDepth + 1;
+    }
+}
@@ -0,0 +1,140 @@
+package com.ctl.springmongoquerydsl.metrics;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time the mongo commands, tagged by command name and by the hash of the shape of their filter : the filter
+ * without its values, so that the queries differing only by their values share the same tag.
+ * <p>
+ * The number of shapes is bounded, the commands of the following shapes are tagged as "other".
+ */
+public class MongoCommandMetrics implements CommandListener {
+
+    /**
+     * the filter of each command
+     */
+    private static final Map<String, String> FILTERS = new HashMap<>();
+
+    static {
+        FILTERS.put("find", "filter");
+        FILTERS.put("count", "query");
+        FILTERS.put("distinct", "query");
+        FILTERS.put("aggregate", "pipeline");
+        FILTERS.put("delete", "deletes");
+        FILTERS.put("update", "updates");
+    }
+
+    private final MeterRegistry registry;
+
+    private final int maximumShapes;
+
+    /**
+     * the command name and shape hash of the running commands, by request id
+     */
+    private final ConcurrentMap<Integer, String[]> running = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, Timer> timers = new ConcurrentHashMap<>();
+
+    /**
+     * Default constructor of {@link MongoCommandMetrics}
+     *
+     * @param registry      the meter registry
+     * @param maximumShapes the maximum number of shape tags
+     */
+    public MongoCommandMetrics(MeterRegistry registry, int maximumShapes) {
+        this.registry = registry;
+        this.maximumShapes = maximumShapes;
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        String filterKey = FILTERS.get(event.getCommandName());
+        BsonValue filter = filterKey == null ? null : event.getCommand().get(filterKey);
+        String shape = filter == null ? "none" : Integer.toHexString(shapeOf(filter));
+        running.put(event.getRequestId(), new String[]{event.getCommandName(), shape});
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        record(event.getRequestId(), event.getElapsedTime(TimeUnit.NANOSECONDS), "success");
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        record(event.getRequestId(), event.getElapsedTime(TimeUnit.NANOSECONDS), "failure");
+    }
+
+    private void record(int requestId, long nanos, String status) {
+        String[] command = running.remove(requestId);
+        if (command == null) {
+            return;
+        }
+        String shape = command[1];
+        String key = command[0] + '|' + shape + '|' + status;
+        Timer timer = timers.get(key);
+        if (timer == null) {
+            if (timers.size() >= maximumShapes) {
+                shape = "other";
+                key = command[0] + '|' + shape + '|' + status;
+            }
+            String tag = shape;
+            timer = timers.computeIfAbsent(key, k -> Timer.builder("mongodb.command")
+                    .tag("command", command[0])
+                    .tag("shape", tag)
+                    .tag("status", status)
+                    .register(registry));
+        }
+        timer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return the hash of the filter without its values
+     */
+    static int shapeOf(BsonValue filter) {
+        StringBuilder shape = new StringBuilder();
+        appendShape(filter, shape);
+        return shape.toString().hashCode();
+    }
+
+    private static void appendShape(BsonValue value, StringBuilder shape) {
+        if (value.isDocument()) {
+            shape.append('{');
+            for (Map.Entry<String, BsonValue> entry : ((BsonDocument) value).entrySet()) {
+                shape.append(entry.getKey()).append(':');
+                appendShape(entry.getValue(), shape);
+                shape.append(',');
+            }
+            shape.append('}');
+        } else if (value.isArray()) {
+            BsonArray array = (BsonArray) value;
+            if (!array.isEmpty() && array.get(0).isDocument()) {
+                // $and / $or / pipeline stages
+                shape.append('[');
+                array.forEach(element -> {
+                    appendShape(element, shape);
+                    shape.append(',');
+                });
+                shape.append(']');
+            } else {
+                // the values of an $in have the same shape whatever their number
+                shape.append("[?]");
+            }
+        } else {
+            shape.append('?');
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.ctl.springmongoquerydsl.metrics;
+
+import com.querydsl.core.types.Predicate;
+
+/**
+ * Measure the phases of a json query : json parsing, predicate build (paths and value conversions) and execution.
+ * <p>
+ * A phase is measured from the time returned by {@link #start()} or by the previous phase. When the metrics are
+ * disabled {@link #NOOP} does not even read the clock.
+ */
+public interface QueryMetrics {
+
+    /**
+     * the disabled metrics
+     */
+    QueryMetrics NOOP = new QueryMetrics() {
+    };
+
+    /**
+     * @return the start time of the first phase
+     */
+    default long start() {
+        return 0;
+    }
+
+    /**
+     * The json has been parsed into a tree
+     *
+     * @param start the start time of the parsing
+     * @return the start time of the next phase
+     */
+    default long parsed(long start) {
+        return 0;
+    }
+
+    /**
+     * The queryDSL predicate has been built
+     *
+     * @param start     the start time of the build
+     * @param predicate the built predicate
+     * @return the start time of the next phase
+     */
+    default long built(long start, Predicate predicate) {
+        return 0;
+    }
+
+    /**
+     * The query has been executed
+     *
+     * @param start     the start time of the execution
+     * @param operation the executed operation. ex : find
+     */
+    default void executed(long start, String operation) {
+    }
+}
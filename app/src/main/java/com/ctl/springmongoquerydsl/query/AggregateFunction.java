@@ -0,0 +1,60 @@
+package com.ctl.springmongoquerydsl.query;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The functions of an {@link AggregateRequest} and their json name
+ */
+public enum AggregateFunction {
+    MIN("min", false),
+    MAX("max", false),
+    AVG("avg", true),
+    SUM("sum", true);
+
+    private static final Map<String, AggregateFunction> BY_JSON = new HashMap<>();
+
+    static {
+        for (AggregateFunction function : values()) {
+            BY_JSON.put(function.json, function);
+        }
+    }
+
+    /**
+     * the json name
+     */
+    private final String json;
+
+    /**
+     * true if the function needs a numeric path
+     */
+    private final boolean numeric;
+
+    AggregateFunction(String json, boolean numeric) {
+        this.json = json;
+        this.numeric = numeric;
+    }
+
+    public String getJson() {
+        return json;
+    }
+
+    public boolean isNumeric() {
+        return numeric;
+    }
+
+    /**
+     * Get the function of the specified json name
+     *
+     * @param json the json name. ex : avg
+     * @return the function
+     * @throws InvalidQueryException if the function does not exist
+     */
+    public static AggregateFunction getFromJson(String json) {
+        AggregateFunction function = BY_JSON.get(json);
+        if (function == null) {
+            throw new InvalidQueryException("The aggregate function " + json + " does not exist, expected one of " + BY_JSON.keySet());
+        }
+        return function;
+    }
+}
@@ -0,0 +1,35 @@
+package com.ctl.springmongoquerydsl.query;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A json aggregation : the documents matching the predicate are grouped and counted, with optional functions on
+ * other paths.
+ * <p>
+ * ex : { "predicate" : { "person.age" : { "$gt" : 10 } }, "groupBy" : [ "person.family" ],
+ * "aggregates" : { "person.age" : [ "min", "max", "avg" ] } }
+ */
+@Getter
+@Setter
+public class AggregateRequest {
+
+    /**
+     * the json predicate, all the documents if null
+     */
+    private JsonNode predicate;
+
+    /**
+     * the paths of the group, a single group if empty
+     */
+    private List<String> groupBy;
+
+    /**
+     * the functions computed on each path, see {@link AggregateFunction}
+     */
+    private Map<String, List<String>> aggregates;
+}
@@ -0,0 +1,32 @@
+package com.ctl.springmongoquerydsl.query;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * The result of one query of a batch : its page, or the reason why it failed
+ */
+@Getter
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchQueryResult {
+
+    /**
+     * the page of results, null if the query failed
+     */
+    private final QueryPage<Object> page;
+
+    /**
+     * the error of the query, null if it succeeded
+     */
+    private final String error;
+
+    public static BatchQueryResult of(QueryPage<Object> page) {
+        return new BatchQueryResult(page, null);
+    }
+
+    public static BatchQueryResult failed(String error) {
+        return new BatchQueryResult(null, error);
+    }
+}
@@ -0,0 +1,71 @@
+package com.ctl.springmongoquerydsl.query;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Getter;
+import lombok.Value;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The counts of a bulk write, summed over its batches, and the documents which could not be written
+ */
+@Getter
+public class BulkWriteReport {
+
+    /**
+     * the number of documents read from the body
+     */
+    private long received;
+
+    /**
+     * the number of batches sent to mongo
+     */
+    private int batches;
+
+    private long inserted;
+
+    private long matched;
+
+    private long modified;
+
+    private long upserted;
+
+    /**
+     * the failed writes, an ordered bulk stops at the first one
+     */
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private final List<Failure> errors = new ArrayList<>();
+
+    public void received(int count) {
+        received += count;
+    }
+
+    /**
+     * Add the counts of a batch
+     */
+    public void add(com.mongodb.bulk.BulkWriteResult result) {
+        batches++;
+        inserted += result.getInsertedCount();
+        matched += result.getMatchedCount();
+        modified += result.isModifiedCountAvailable() ? result.getModifiedCount() : 0;
+        upserted += result.getUpserts().size();
+    }
+
+    /**
+     * @param index   the index of the document in the body
+     * @param message the mongo error
+     */
+    public void failed(long index, String message) {
+        errors.add(new Failure(index, message));
+    }
+
+    /**
+     * A document which could not be written
+     */
+    @Value
+    public static class Failure {
+        long index;
+        String message;
+    }
+}
@@ -0,0 +1,258 @@
+package com.ctl.springmongoquerydsl.query;
+
+import com.ctl.springmongoquerydsl.jackson.IndexedPaths;
+import com.ctl.springmongoquerydsl.utils.MyPathUtils;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Operator;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Predicate;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.data.mapping.MappingException;
+import org.springframework.data.mapping.PropertyPath;
+import org.springframework.data.mapping.PropertyReferenceException;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.index.IndexField;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Check the predicates against the indexes of the collection, to catch the ones which would scan the whole
+ * collection (ex : $containsIc, or a range on a field without index).
+ * <p>
+ * A condition can use an index when its field is the first key of an index and its operator can be answered from
+ * the index (equality, in, ranges, starts with). An and needs one such condition, an or needs all of its
+ * conditions to use an index. The indexes are read once, {@link #refresh()} reloads them.
+ */
+@Slf4j
+public class IndexPlanner implements IndexedPaths {
+
+    /**
+     * What to do with a predicate which would scan the whole collection
+     */
+    public enum Policy {
+        /**
+         * run the query, the unindexed queries are only counted
+         */
+        IGNORE,
+        /**
+         * run the query and log a warning
+         */
+        WARN,
+        /**
+         * refuse the query
+         */
+        REJECT
+    }
+
+    /**
+     * the operators which can be answered from an index
+     */
+    private static final Set<Operator> INDEXED_OPERATORS = new HashSet<>(Arrays.asList(
+            Ops.EQ, Ops.IN, Ops.LT, Ops.LOE, Ops.GT, Ops.GOE, Ops.BETWEEN, Ops.STARTS_WITH));
+
+    private final MongoOperations mongoOperations;
+    private final MongoMappingContext mappingContext;
+    private final Class<?> entityClass;
+    private final Policy policy;
+
+    /**
+     * the mongo fields which are the first key of an index
+     */
+    private volatile Set<String> leadingFields = Collections.emptySet();
+
+    /**
+     * the mongo operators which can be answered from an index
+     */
+    private static final Set<String> INDEXED_FILTER_OPERATORS = new HashSet<>(Arrays.asList(
+            "$eq", "$in", "$lt", "$lte", "$gt", "$gte"));
+
+    /**
+     * the mongo field of each property path
+     */
+    private final ConcurrentMap<String, String> fieldNames = new ConcurrentHashMap<>();
+
+    private final AtomicLong unindexedCount = new AtomicLong();
+
+    /**
+     * Default constructor of {@link IndexPlanner}, the indexes are read right away
+     *
+     * @param mongoOperations the mongo operations
+     * @param mappingContext  the mapping context, to get the field names of the paths
+     * @param entityClass     the entity class of the collection
+     * @param policy          what to do with the unindexed predicates
+     */
+    public IndexPlanner(MongoOperations mongoOperations, MongoMappingContext mappingContext, Class<?> entityClass, Policy policy) {
+        this.mongoOperations = mongoOperations;
+        this.mappingContext = mappingContext;
+        this.entityClass = entityClass;
+        this.policy = policy;
+        refresh();
+    }
+
+    /**
+     * Read the indexes of the collection again
+     */
+    public void refresh() {
+        Set<String> fields = new HashSet<>();
+        List<IndexInfo> indexes = mongoOperations.indexOps(entityClass).getIndexInfo();
+        for (IndexInfo index : indexes) {
+            List<IndexField> indexFields = index.getIndexFields();
+            if (!indexFields.isEmpty() && !indexFields.get(0).isText()) {
+                fields.add(indexFields.get(0).getKey());
+            }
+        }
+        leadingFields = Collections.unmodifiableSet(fields);
+    }
+
+    /**
+     * Check that the specified predicate can use an index, according to the policy
+     *
+     * @param predicate the predicate, null (all the documents) is not checked
+     * @throws InvalidQueryException if the predicate would scan the collection and the policy is REJECT
+     */
+    public void check(Predicate predicate) {
+        if (predicate == null || PredicateOptimizer.isNever(predicate) || isIndexed(predicate)) {
+            return;
+        }
+        unindexedCount.incrementAndGet();
+        switch (policy) {
+            case REJECT:
+                throw new InvalidQueryException("The predicate can not use an index of the collection : " + predicate);
+            case WARN:
+                log.warn("The predicate can not use an index of the {} collection : {}", entityClass.getSimpleName(), predicate);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * @param predicate the predicate
+     * @return true if mongo can answer the predicate from an index
+     */
+    public boolean isIndexed(Predicate predicate) {
+        if (!(predicate instanceof Operation)) {
+            return false;
+        }
+        Operation<?> operation = (Operation<?>) predicate;
+        Operator operator = operation.getOperator();
+        if (operator == Ops.AND) {
+            for (Expression<?> arg : operation.getArgs()) {
+                if (isIndexed((Predicate) arg)) {
+                    return true;
+                }
+            }
+            return false;
+        } else if (operator == Ops.OR) {
+            for (Expression<?> arg : operation.getArgs()) {
+                if (!isIndexed((Predicate) arg)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return INDEXED_OPERATORS.contains(operator) && operation.getArg(0) instanceof Path
+                && isIndexedPath((Path<?>) operation.getArg(0));
+    }
+
+    /**
+     * Check that the specified mongo filter can use an index, according to the policy
+     *
+     * @param filter the filter, with the property paths as keys (see {@link com.ctl.springmongoquerydsl.jackson.BsonFilterTranslator})
+     * @throws InvalidQueryException if the filter would scan the collection and the policy is REJECT
+     */
+    public void check(Document filter) {
+        if (filter.isEmpty() || isIndexed(filter)) {
+            return;
+        }
+        unindexedCount.incrementAndGet();
+        switch (policy) {
+            case REJECT:
+                throw new InvalidQueryException("The filter can not use an index of the collection : " + filter.toJson());
+            case WARN:
+                log.warn("The filter can not use an index of the {} collection : {}", entityClass.getSimpleName(), filter.toJson());
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * @param filter the mongo filter, with the property paths as keys
+     * @return true if mongo can answer the filter from an index, like {@link #isIndexed(Predicate)}
+     */
+    public boolean isIndexed(Document filter) {
+        for (Map.Entry<String, Object> condition : filter.entrySet()) {
+            if (isIndexed(condition.getKey(), condition.getValue())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isIndexed(String key, Object value) {
+        if ("$and".equals(key)) {
+            for (Object element : (List<?>) value) {
+                if (isIndexed((Document) element)) {
+                    return true;
+                }
+            }
+            return false;
+        } else if ("$or".equals(key)) {
+            for (Object element : (List<?>) value) {
+                if (!isIndexed((Document) element)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (!leadingFields.contains(fieldName(key))) {
+            return false;
+        }
+        return !(value instanceof Document) || INDEXED_FILTER_OPERATORS.containsAll(((Document) value).keySet());
+    }
+
+    @Override
+    public boolean isIndexedPath(Path<?> path) {
+        return leadingFields.contains(fieldName(MyPathUtils.toPropertyPath(path)));
+    }
+
+    /**
+     * @return the number of checked predicates which could not use an index
+     */
+    public long getUnindexedCount() {
+        return unindexedCount.get();
+    }
+
+    /**
+     * @return the policy applied to the unindexed predicates
+     */
+    public Policy getPolicy() {
+        return policy;
+    }
+
+    private String fieldName(String propertyPath) {
+        return fieldNames.computeIfAbsent(propertyPath, p -> {
+            try {
+                return mappingContext.getPersistentPropertyPath(PropertyPath.from(propertyPath, entityClass))
+                        .toDotPath(MongoPersistentProperty.PropertyToFieldNameConverter.INSTANCE);
+            } catch (PropertyReferenceException | MappingException e) {
+                return propertyPath;
+            }
+        });
+    }
+}
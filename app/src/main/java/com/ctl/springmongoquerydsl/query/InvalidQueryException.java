@@ -0,0 +1,16 @@
+package com.ctl.springmongoquerydsl.query;
+
+/**
+ * The query is not valid : over the complexity limits, an invalid page or searchAfter, no index for the predicate,
+ * an invalid bulk body... The client has to change the query, unlike the other illegal arguments
+ */
+public class InvalidQueryException extends IllegalArgumentException {
+
+    public InvalidQueryException(String message) {
+        super(message);
+    }
+
+    public InvalidQueryException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
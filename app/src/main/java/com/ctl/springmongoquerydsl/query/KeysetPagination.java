@@ -0,0 +1,128 @@
+package com.ctl.springmongoquerydsl.query;
+
+import com.ctl.springmongoquerydsl.jackson.JsonTypeConverter;
+import com.ctl.springmongoquerydsl.utils.MyPathUtils;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Order;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.Expressions;
+import org.bson.Document;
+import org.springframework.beans.DirectFieldAccessor;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keyset ("search after") pagination : the next page is selected with a predicate on the order by values of the
+ * last document instead of skipping the previous documents, so deep pages cost the same as the first one.
+ */
+public final class KeysetPagination {
+
+    private KeysetPagination() {
+    }
+
+    /**
+     * Make sure the order bys end with the unique path, so that the documents have a total order
+     *
+     * @param orderBys the requested order bys
+     * @param uniquePath the unique path (the id)
+     * @return the order bys ending with the unique path
+     */
+    @SuppressWarnings("unchecked")
+    public static List<OrderSpecifier<?>> withTieBreaker(List<OrderSpecifier<?>> orderBys, Path<?> uniquePath) {
+        for (OrderSpecifier<?> orderBy : orderBys) {
+            if (orderBy.getTarget().equals(uniquePath)) {
+                return orderBys;
+            }
+        }
+        List<OrderSpecifier<?>> result = new ArrayList<>(orderBys);
+        result.add(new OrderSpecifier(Order.ASC, uniquePath));
+        return result;
+    }
+
+    /**
+     * Build the predicate selecting the documents after the specified order by values :
+     * (a &gt; va) or (a = va and b &gt; vb) or ...
+     * <p>
+     * A null value is a missing field (the null properties are not written), mongo sorts them first : in ascending
+     * order the documents after a null value are the ones having the field, in descending order there are none, and
+     * the documents after a non null value include the missing fields.
+     *
+     * @param orderBys    the order bys
+     * @param searchAfter the json values of the order by paths, null for a missing field
+     * @param converter   the json value converter
+     * @return the keyset predicate
+     */
+    public static BooleanExpression after(List<OrderSpecifier<?>> orderBys, JsonNode searchAfter, JsonTypeConverter converter) {
+        List<BooleanExpression> alternatives = new ArrayList<>();
+        List<BooleanExpression> equalities = new ArrayList<>();
+        for (OrderSpecifier<?> orderBy : orderBys) {
+            Path<?> path = (Path<?>) orderBy.getTarget();
+            JsonNode value = searchAfter.get(path.toString());
+            if (value == null) {
+                throw new InvalidQueryException("searchAfter has no value for the order by " + path);
+            }
+            BooleanExpression after;
+            BooleanExpression equality;
+            if (value.isNull()) {
+                after = orderBy.isAscending() ? Expressions.predicate(Ops.IS_NOT_NULL, path) : null;
+                equality = Expressions.predicate(Ops.IS_NULL, path);
+            } else {
+                Expression<?> constant = Expressions.constant(converter.convert(value, path.getType()));
+                after = orderBy.isAscending() ? Expressions.predicate(Ops.GT, path, constant)
+                        : Expressions.predicate(Ops.LT, path, constant).or(Expressions.predicate(Ops.IS_NULL, path));
+                equality = Expressions.predicate(Ops.EQ, path, constant);
+            }
+            if (after != null) {
+                List<BooleanExpression> alternative = new ArrayList<>(equalities);
+                alternative.add(after);
+                alternatives.add(Expressions.allOf(alternative.toArray(new BooleanExpression[alternative.size()])));
+            }
+            equalities.add(equality);
+        }
+        return Expressions.anyOf(alternatives.toArray(new BooleanExpression[alternatives.size()]));
+    }
+
+    /**
+     * Get the order by values of a document, to be sent back as searchAfter
+     *
+     * @param document the last document of a page
+     * @param orderBys the order bys
+     * @return the values, keyed by order by path
+     */
+    public static Map<String, Object> valuesOf(Object document, List<OrderSpecifier<?>> orderBys) {
+        DirectFieldAccessor accessor = new DirectFieldAccessor(document);
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (OrderSpecifier<?> orderBy : orderBys) {
+            Path<?> path = (Path<?>) orderBy.getTarget();
+            values.put(path.toString(), accessor.getPropertyValue(MyPathUtils.toPropertyPath(path)));
+        }
+        return values;
+    }
+
+    /**
+     * Get the order by values of a projected document, to be sent back as searchAfter
+     *
+     * @param document the last document of a page, keyed by property name
+     * @param orderBys the order bys
+     * @return the values, keyed by order by path
+     */
+    public static Map<String, Object> valuesOf(Document document, List<OrderSpecifier<?>> orderBys) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (OrderSpecifier<?> orderBy : orderBys) {
+            Path<?> path = (Path<?>) orderBy.getTarget();
+            Object value = document;
+            for (String property : MyPathUtils.toPropertyPath(path).split("\\.")) {
+                value = value instanceof Map ? ((Map<?, ?>) value).get(property) : null;
+            }
+            values.put(path.toString(), value);
+        }
+        return values;
+    }
+}
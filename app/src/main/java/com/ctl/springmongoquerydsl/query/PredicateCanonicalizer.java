@@ -0,0 +1,117 @@
+package com.ctl.springmongoquerydsl.query;
+
+import com.ctl.springmongoquerydsl.jackson.QueryDslOperator;
+import com.fasterxml.jackson.core.util.BufferRecyclers;
+import com.querydsl.core.types.Constant;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Operator;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Predicate;
+
+import java.time.Instant;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Write a predicate back as a stable json, so that the predicates matching the same documents the same way get the
+ * same string whatever the order of their conditions :
+ * <ul>
+ * <li>a condition is written { "path" : { "$operator" : value } } with the json operators of {@link QueryDslOperator}</li>
+ * <li>the operands of an and / or, and the values of an in / not in, are sorted</li>
+ * <li>the strings are quoted and the numbers are not, { "person.age" : 9 } and { "person.age" : "9" } differ</li>
+ * <li>the dates are written { "$date" : iso-8601 } with all their precision, unlike {@link Date#toString()}</li>
+ * </ul>
+ * The operators without json equivalent are written with their queryDSL name.
+ */
+public final class PredicateCanonicalizer {
+
+    private PredicateCanonicalizer() {
+    }
+
+    /**
+     * @param predicate the predicate, null for all the documents
+     * @return the canonical json of the predicate
+     */
+    public static String canonicalJson(Predicate predicate) {
+        return predicate == null ? "{}" : write(predicate);
+    }
+
+    private static String write(Expression<?> expression) {
+        if (expression instanceof Operation) {
+            return writeOperation((Operation<?>) expression);
+        } else if (expression instanceof Path) {
+            return quote(expression.toString());
+        } else if (expression instanceof Constant) {
+            return writeValue(((Constant<?>) expression).getConstant());
+        }
+        return quote(expression.toString());
+    }
+
+    private static String writeOperation(Operation<?> operation) {
+        Operator operator = operation.getOperator();
+        String name = QueryDslOperator.findFromDsl(operator).map(QueryDslOperator::getJson).orElse("$" + operator.name());
+        if (operator == Ops.AND || operator == Ops.OR) {
+            return "{" + quote(name) + ":" + sortedArray(operation.getArgs()) + "}";
+        }
+        List<Expression<?>> args = operation.getArgs();
+        if (!args.isEmpty() && args.get(0) instanceof Path) {
+            List<Expression<?>> values = args.subList(1, args.size());
+            String value = values.size() == 1 ? write(values.get(0)) : array(values);
+            return "{" + write(args.get(0)) + ":{" + quote(name) + ":" + value + "}}";
+        }
+        return "{" + quote(name) + ":" + array(args) + "}";
+    }
+
+    private static String writeValue(Object value) {
+        if (value == null) {
+            return "null";
+        } else if (value instanceof Number || value instanceof Boolean) {
+            return value.toString();
+        } else if (value instanceof Enum) {
+            return quote(((Enum<?>) value).name());
+        } else if (value instanceof Date) {
+            return "{\"$date\":" + quote(Instant.ofEpochMilli(((Date) value).getTime()).toString()) + "}";
+        } else if (value instanceof TemporalAccessor) {
+            // the toString of the java.time types is iso-8601, down to the nanoseconds
+            return "{\"$date\":" + quote(value.toString()) + "}";
+        } else if (value instanceof Collection) {
+            List<String> values = new ArrayList<>();
+            for (Object element : (Collection<?>) value) {
+                values.add(writeValue(element));
+            }
+            Collections.sort(values);
+            return "[" + String.join(",", values) + "]";
+        }
+        return quote(value.toString());
+    }
+
+    private static String sortedArray(List<Expression<?>> expressions) {
+        List<String> values = new ArrayList<>(expressions.size());
+        for (Expression<?> expression : expressions) {
+            values.add(write(expression));
+        }
+        Collections.sort(values);
+        return "[" + String.join(",", values) + "]";
+    }
+
+    private static String array(List<Expression<?>> expressions) {
+        List<String> values = new ArrayList<>(expressions.size());
+        for (Expression<?> expression : expressions) {
+            values.add(write(expression));
+        }
+        return "[" + String.join(",", values) + "]";
+    }
+
+    private static String quote(String value) {
+        StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+        // the encoder of the thread, it keeps its buffers between calls
+        BufferRecyclers.getJsonStringEncoder().quoteAsString(value, quoted);
+        return quoted.append('"').toString();
+    }
+}
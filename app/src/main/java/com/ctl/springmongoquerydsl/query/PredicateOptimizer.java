@@ -0,0 +1,347 @@
+package com.ctl.springmongoquerydsl.query;
+
+import com.querydsl.core.types.Constant;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Operator;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.Expressions;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Simplify a deserialized predicate before it is sent to mongo :
+ * <ul>
+ * <li>nested and / or are flattened and duplicated conditions removed</li>
+ * <li>an or of equalities (and in) on the same path becomes a single in</li>
+ * <li>the ranges (eq, lt, loe, gt, goe, between) on the same path of an and are folded into one range, unless the
+ * path is in an array : the declared properties are read from the mapping context</li>
+ * <li>a predicate which can never match becomes {@link #NEVER}, the query does not have to be run</li>
+ * </ul>
+ */
+public final class PredicateOptimizer {
+
+    /**
+     * the predicate matching no document, it can not be serialized to mongo
+     */
+    public static final Predicate NEVER = Expressions.FALSE.isTrue();
+
+    /**
+     * the mapping context of the entities, when none is given
+     */
+    private static final MongoMappingContext DEFAULT_MAPPING_CONTEXT = new MongoMappingContext();
+
+    private PredicateOptimizer() {
+    }
+
+    /**
+     * Optimize the specified predicate
+     *
+     * @param predicate the predicate, can be null
+     * @return the equivalent simplified predicate, {@link #NEVER} or null if it matches all the documents
+     */
+    public static Predicate optimize(Predicate predicate) {
+        return optimize(predicate, DEFAULT_MAPPING_CONTEXT);
+    }
+
+    /**
+     * Optimize the specified predicate
+     *
+     * @param predicate      the predicate, can be null
+     * @param mappingContext the mapping context, to find the paths in an array
+     * @return the equivalent simplified predicate, {@link #NEVER} or null if it matches all the documents
+     */
+    public static Predicate optimize(Predicate predicate, MongoMappingContext mappingContext) {
+        if (predicate == null) {
+            return null;
+        }
+        return simplify(predicate, mappingContext);
+    }
+
+    /**
+     * @param predicate the optimized predicate
+     * @return true if the predicate can never match a document
+     */
+    public static boolean isNever(Predicate predicate) {
+        return NEVER.equals(predicate);
+    }
+
+    private static Predicate simplify(Predicate predicate, MongoMappingContext mappingContext) {
+        if (!(predicate instanceof Operation)) {
+            return predicate;
+        }
+        Operator operator = ((Operation<?>) predicate).getOperator();
+        if (operator == Ops.AND) {
+            return simplifyAnd(flatten(predicate, Ops.AND, mappingContext), mappingContext);
+        } else if (operator == Ops.OR) {
+            return simplifyOr(flatten(predicate, Ops.OR, mappingContext));
+        }
+        return predicate;
+    }
+
+    /**
+     * Collect the simplified operands of nested operations having the same operator, without duplicates
+     */
+    private static Set<Predicate> flatten(Predicate predicate, Operator operator, MongoMappingContext mappingContext) {
+        Set<Predicate> operands = new LinkedHashSet<>();
+        for (Expression<?> arg : ((Operation<?>) predicate).getArgs()) {
+            Predicate operand = simplify((Predicate) arg, mappingContext);
+            if (operand instanceof Operation && ((Operation<?>) operand).getOperator() == operator) {
+                // the operand has already been flattened
+                for (Expression<?> nested : ((Operation<?>) operand).getArgs()) {
+                    operands.add((Predicate) nested);
+                }
+            } else {
+                operands.add(operand);
+            }
+        }
+        return operands;
+    }
+
+    private static Predicate simplifyAnd(Set<Predicate> operands, MongoMappingContext mappingContext) {
+        if (operands.contains(NEVER)) {
+            return NEVER;
+        }
+        Map<Path<?>, Range> ranges = new LinkedHashMap<>();
+        List<Predicate> others = new ArrayList<>();
+        for (Predicate operand : operands) {
+            Path<?> path = rangePath(operand, mappingContext);
+            if (path == null) {
+                others.add(operand);
+                continue;
+            }
+            Range range = ranges.computeIfAbsent(path, Range::new);
+            if (range.accepts((Operation<?>) operand)) {
+                range.add((Operation<?>) operand);
+            } else {
+                // bounds of another type can not be compared
+                others.add(operand);
+            }
+        }
+        List<Predicate> result = new ArrayList<>();
+        for (Range range : ranges.values()) {
+            if (range.isEmpty()) {
+                return NEVER;
+            }
+            result.addAll(range.toPredicates());
+        }
+        result.addAll(others);
+        return ExpressionUtils.allOf(result);
+    }
+
+    private static Predicate simplifyOr(Set<Predicate> operands) {
+        operands.remove(NEVER);
+        if (operands.isEmpty()) {
+            return NEVER;
+        }
+        // the values of the equalities of each path, in the order of the first one
+        Map<Path<?>, Set<Object>> values = new LinkedHashMap<>();
+        List<Predicate> result = new ArrayList<>();
+        for (Predicate operand : operands) {
+            Path<?> path = inPath(operand);
+            if (path == null) {
+                result.add(operand);
+                continue;
+            }
+            Set<Object> pathValues = values.get(path);
+            if (pathValues == null) {
+                pathValues = new LinkedHashSet<>();
+                values.put(path, pathValues);
+                // keeps the position of the path
+                result.add(null);
+            }
+            Operation<?> operation = (Operation<?>) operand;
+            Object constant = ((Constant<?>) operation.getArg(1)).getConstant();
+            if (operation.getOperator() == Ops.IN && constant instanceof Collection) {
+                pathValues.addAll((Collection<?>) constant);
+            } else {
+                pathValues.add(constant);
+            }
+        }
+        List<Predicate> merged = new ArrayList<>();
+        int i = 0;
+        List<Map.Entry<Path<?>, Set<Object>>> entries = new ArrayList<>(values.entrySet());
+        for (Predicate operand : result) {
+            if (operand != null) {
+                merged.add(operand);
+                continue;
+            }
+            Map.Entry<Path<?>, Set<Object>> entry = entries.get(i++);
+            if (entry.getValue().size() == 1) {
+                merged.add(Expressions.predicate(Ops.EQ, entry.getKey(),
+                        Expressions.constant(entry.getValue().iterator().next())));
+            } else {
+                merged.add(Expressions.predicate(Ops.IN, entry.getKey(),
+                        Expressions.constant(new ArrayList<>(entry.getValue()))));
+            }
+        }
+        return ExpressionUtils.anyOf(merged);
+    }
+
+    /**
+     * @return the path of an eq / in operation with constant values, null for other predicates
+     */
+    private static Path<?> inPath(Predicate predicate) {
+        if (!(predicate instanceof Operation)) {
+            return null;
+        }
+        Operation<?> operation = (Operation<?>) predicate;
+        Operator operator = operation.getOperator();
+        if ((operator == Ops.EQ || operator == Ops.IN) && operation.getArgs().size() == 2
+                && operation.getArg(0) instanceof Path && operation.getArg(1) instanceof Constant) {
+            return (Path<?>) operation.getArg(0);
+        }
+        return null;
+    }
+
+    /**
+     * @return the path of a range operation with comparable constant bounds, null for other predicates. The
+     * conditions on arrays are not folded : each one can be matched by a different element
+     */
+    private static Path<?> rangePath(Predicate predicate, MongoMappingContext mappingContext) {
+        if (!(predicate instanceof Operation)) {
+            return null;
+        }
+        Operation<?> operation = (Operation<?>) predicate;
+        Operator operator = operation.getOperator();
+        if (operator != Ops.EQ && operator != Ops.LT && operator != Ops.LOE && operator != Ops.GT
+                && operator != Ops.GOE && operator != Ops.BETWEEN) {
+            return null;
+        }
+        if (!(operation.getArg(0) instanceof Path) || isInArray((Path<?>) operation.getArg(0), mappingContext)) {
+            return null;
+        }
+        for (int i = 1; i < operation.getArgs().size(); i++) {
+            Expression<?> arg = operation.getArg(i);
+            if (!(arg instanceof Constant) || !(((Constant<?>) arg).getConstant() instanceof Comparable)) {
+                return null;
+            }
+        }
+        return (Path<?>) operation.getArg(0);
+    }
+
+    /**
+     * The paths of a collection or an array have the element type : the declared properties of the path and of its
+     * parents are checked instead
+     *
+     * @return true if the path, or one of its parents, is a collection, an array or a map, or is not a property
+     */
+    private static boolean isInArray(Path<?> path, MongoMappingContext mappingContext) {
+        for (Path<?> current = path; current.getMetadata().getParent() != null; current = current.getMetadata().getParent()) {
+            MongoPersistentEntity<?> entity = mappingContext.getPersistentEntity(current.getMetadata().getParent().getType());
+            MongoPersistentProperty property = entity == null ? null : entity.getPersistentProperty(current.getMetadata().getName());
+            if (property == null || property.isCollectionLike() || property.isMap()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The folded bounds of a path
+     */
+    private static final class Range {
+
+        private final Path<?> path;
+        private Comparable<Object> lower;
+        private boolean lowerInclusive;
+        private Comparable<Object> upper;
+        private boolean upperInclusive;
+
+        Range(Path<?> path) {
+            this.path = path;
+        }
+
+        /**
+         * @return true if the bounds of the operation have the type of the previous ones
+         */
+        boolean accepts(Operation<?> operation) {
+            Comparable<Object> bound = lower != null ? lower : upper;
+            for (int i = 1; i < operation.getArgs().size(); i++) {
+                if (bound != null && !bound.getClass().equals(valueOf(operation, i).getClass())) {
+                    return false;
+                }
+            }
+            return operation.getArgs().size() < 3 || valueOf(operation, 1).getClass().equals(valueOf(operation, 2).getClass());
+        }
+
+        /**
+         * Add the bounds of a range operation
+         */
+        void add(Operation<?> operation) {
+            Operator operator = operation.getOperator();
+            if (operator == Ops.EQ) {
+                addLower(valueOf(operation, 1), true);
+                addUpper(valueOf(operation, 1), true);
+            } else if (operator == Ops.GT || operator == Ops.GOE) {
+                addLower(valueOf(operation, 1), operator == Ops.GOE);
+            } else if (operator == Ops.LT || operator == Ops.LOE) {
+                addUpper(valueOf(operation, 1), operator == Ops.LOE);
+            } else {
+                addLower(valueOf(operation, 1), true);
+                addUpper(valueOf(operation, 2), true);
+            }
+        }
+
+        private void addLower(Comparable<Object> value, boolean inclusive) {
+            int comparison = lower == null ? 1 : value.compareTo(lower);
+            if (comparison > 0 || comparison == 0 && !inclusive) {
+                lower = value;
+                lowerInclusive = inclusive;
+            }
+        }
+
+        private void addUpper(Comparable<Object> value, boolean inclusive) {
+            int comparison = upper == null ? -1 : value.compareTo(upper);
+            if (comparison < 0 || comparison == 0 && !inclusive) {
+                upper = value;
+                upperInclusive = inclusive;
+            }
+        }
+
+        /**
+         * @return true if no value can be in the range
+         */
+        boolean isEmpty() {
+            if (lower == null || upper == null) {
+                return false;
+            }
+            int comparison = lower.compareTo(upper);
+            return comparison > 0 || comparison == 0 && !(lowerInclusive && upperInclusive);
+        }
+
+        List<Predicate> toPredicates() {
+            List<Predicate> predicates = new ArrayList<>();
+            if (lower != null && upper != null && lower.compareTo(upper) == 0) {
+                predicates.add(Expressions.predicate(Ops.EQ, path, Expressions.constant(lower)));
+            } else if (lower != null && upper != null && lowerInclusive && upperInclusive) {
+                predicates.add(Expressions.predicate(Ops.BETWEEN, path, Expressions.constant(lower), Expressions.constant(upper)));
+            } else {
+                if (lower != null) {
+                    predicates.add(Expressions.predicate(lowerInclusive ? Ops.GOE : Ops.GT, path, Expressions.constant(lower)));
+                }
+                if (upper != null) {
+                    predicates.add(Expressions.predicate(upperInclusive ? Ops.LOE : Ops.LT, path, Expressions.constant(upper)));
+                }
+            }
+            return predicates;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static Comparable<Object> valueOf(Operation<?> operation, int index) {
+            return (Comparable<Object>) ((Constant<?>) operation.getArg(index)).getConstant();
+        }
+    }
+}
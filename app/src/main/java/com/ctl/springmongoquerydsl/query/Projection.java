@@ -0,0 +1,100 @@
+package com.ctl.springmongoquerydsl.query;
+
+import com.ctl.springmongoquerydsl.jackson.DefaultQueryDslDeserializer;
+import com.ctl.springmongoquerydsl.utils.MyPathUtils;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.bson.Document;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map.Entry;
+import java.util.Set;
+
+/**
+ * The fields to return from a json query, ex : { "person.name" : 1, "person.family" : 1 } or { "person.age" : 0 }.
+ * <p>
+ * Like a mongo projection it either includes or excludes fields, only the id can be excluded from an inclusive
+ * projection. The paths are validated against the entity.
+ */
+public class Projection {
+
+    /**
+     * the property paths to include
+     */
+    private final Set<String> includes = new LinkedHashSet<>();
+
+    /**
+     * the property paths to exclude
+     */
+    private final Set<String> excludes = new LinkedHashSet<>();
+
+    private Projection() {
+    }
+
+    /**
+     * Parse a json projection
+     *
+     * @param json         the json projection : path - 1 / 0
+     * @param deserializer the deserializer validating the paths
+     * @param entityClass  the root entity class
+     * @param idProperty   the name of the id property
+     * @return the projection
+     */
+    public static Projection parse(JsonNode json, DefaultQueryDslDeserializer<?> deserializer, Class<?> entityClass, String idProperty) {
+        if (!json.isObject()) {
+            throw new InvalidQueryException("The projection has to be an object : path - 1 / 0");
+        }
+        Projection projection = new Projection();
+        Iterator<Entry<String, JsonNode>> fields = json.fields();
+        while (fields.hasNext()) {
+            Entry<String, JsonNode> field = fields.next();
+            String propertyPath = MyPathUtils.toPropertyPath(deserializer.resolvePath(field.getKey(), entityClass));
+            if (field.getValue().asBoolean()) {
+                projection.includes.add(propertyPath);
+            } else {
+                projection.excludes.add(propertyPath);
+            }
+        }
+        if (!projection.includes.isEmpty()
+                && !(projection.excludes.isEmpty() || projection.excludes.size() == 1 && projection.excludes.contains(idProperty))) {
+            throw new InvalidQueryException("The projection can not mix included and excluded paths, except for the id");
+        }
+        return projection;
+    }
+
+    /**
+     * Build the mongo fields of the projection
+     *
+     * @param requiredPaths property paths which have to be fetched anyway (ex : the order bys)
+     * @return the fields, keyed by property path
+     */
+    public Document toFields(Collection<String> requiredPaths) {
+        Document fields = new Document();
+        if (!includes.isEmpty()) {
+            includes.forEach(path -> fields.put(path, 1));
+            requiredPaths.forEach(path -> fields.put(path, 1));
+        } else {
+            excludes.stream()
+                    .filter(path -> !requiredPaths.contains(path))
+                    .forEach(path -> fields.put(path, 0));
+        }
+        return fields;
+    }
+
+    /**
+     * Keep only the projected properties of a projected document : the paths fetched for the order bys are removed
+     *
+     * @param document the document read with the {@link #toFields(Collection) fields} of the projection, keyed by
+     *                 property name
+     * @return the document, with the projected properties only
+     */
+    public Document project(Document document) {
+        if (!includes.isEmpty()) {
+            document.keySet().removeIf(path -> !includes.contains(path));
+        } else {
+            document.keySet().removeAll(excludes);
+        }
+        return document;
+    }
+}
@@ -0,0 +1,249 @@
+package com.ctl.springmongoquerydsl.query;
+
+import com.ctl.springmongoquerydsl.jackson.IndexedPaths;
+import com.ctl.springmongoquerydsl.jackson.QueryComplexityLimits;
+import com.ctl.springmongoquerydsl.jackson.QueryDslOperator;
+import com.querydsl.core.types.Constant;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Predicate;
+import org.bson.Document;
+import org.springframework.data.util.CloseableIterator;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Limit the number of queries running at the same time, per cost class : the expensive queries have their own
+ * permits, they can not take the ones of the cheap queries.
+ * <p>
+ * The cost of a predicate is 1 per operation, 1 per 100 values of a $in and {@link #UNINDEXED_REGEX_COST} per
+ * regex condition on an unindexed path.
+ */
+public class QueryAdmission {
+
+    /**
+     * the cost classes of the queries
+     */
+    public enum CostClass {
+        CHEAP,
+        EXPENSIVE
+    }
+
+    /**
+     * cost of a regex condition on an unindexed path : it scans the collection
+     */
+    public static final int UNINDEXED_REGEX_COST = 100;
+
+    private final int expensiveCost;
+    private final Semaphore cheap;
+    private final Semaphore expensive;
+    private final long timeoutMillis;
+    private final IndexedPaths indexedPaths;
+
+    /**
+     * Default constructor of {@link QueryAdmission}
+     *
+     * @param expensiveCost     the cost from which a query is expensive
+     * @param cheapPermits      the maximum number of cheap queries running at the same time
+     * @param expensivePermits  the maximum number of expensive queries running at the same time
+     * @param timeoutMillis     the time a query waits for a permit before being rejected
+     * @param indexedPaths      the indexed paths
+     */
+    public QueryAdmission(int expensiveCost, int cheapPermits, int expensivePermits, long timeoutMillis, IndexedPaths indexedPaths) {
+        this.expensiveCost = expensiveCost;
+        this.cheap = new Semaphore(cheapPermits);
+        this.expensive = new Semaphore(expensivePermits);
+        this.timeoutMillis = timeoutMillis;
+        this.indexedPaths = indexedPaths;
+    }
+
+    /**
+     * Run the query once a permit of its cost class is available
+     *
+     * @param predicate the predicate of the query, null for all the documents
+     * @param query     the query
+     * @return the result of the query
+     * @throws QueryRejectedException if no permit has been available in time
+     */
+    public <T> T admit(Predicate predicate, Supplier<T> query) {
+        return admit(classify(predicate), query);
+    }
+
+    /**
+     * Run the query of a mongo filter once a permit of its cost class is available
+     *
+     * @param filter the mongo filter of the query
+     * @param query  the query
+     * @return the result of the query
+     * @throws QueryRejectedException if no permit has been available in time
+     */
+    public <T> T admitFilter(Document filter, Supplier<T> query) {
+        return admit(cost(filter) >= expensiveCost ? CostClass.EXPENSIVE : CostClass.CHEAP, query);
+    }
+
+    private <T> T admit(CostClass costClass, Supplier<T> query) {
+        try (Permit permit = acquire(costClass)) {
+            return query.get();
+        }
+    }
+
+    /**
+     * Open a cursor once a permit of its cost class is available, the permit is held until the cursor is closed
+     *
+     * @param predicate the predicate of the query, null for all the documents
+     * @param cursor    opens the cursor
+     * @return the cursor, releasing the permit when it is closed
+     * @throws QueryRejectedException if no permit has been available in time
+     */
+    public <T> CloseableIterator<T> admitCursor(Predicate predicate, Supplier<? extends CloseableIterator<T>> cursor) {
+        Permit permit = acquire(predicate);
+        try {
+            return permit.releasedOnClose(cursor.get());
+        } catch (RuntimeException e) {
+            permit.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Wait for a permit of the cost class of the predicate, for the queries which outlive the call (cursors,
+     * reactive streams) : the permit has to be closed when the query is done
+     *
+     * @param predicate the predicate of the query, null for all the documents
+     * @return the permit
+     * @throws QueryRejectedException if no permit has been available in time
+     */
+    public Permit acquire(Predicate predicate) {
+        return acquire(classify(predicate));
+    }
+
+    private Permit acquire(CostClass costClass) {
+        Semaphore permits = costClass == CostClass.CHEAP ? cheap : expensive;
+        try {
+            if (!permits.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new QueryRejectedException("Too many " + costClass.name().toLowerCase() + " queries are running, retry later");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new QueryRejectedException("The query has been interrupted while waiting to run");
+        }
+        return new Permit(permits);
+    }
+
+    /**
+     * @param predicate the predicate, null for all the documents
+     * @return the cost class of the predicate
+     */
+    public CostClass classify(Predicate predicate) {
+        return cost(predicate) >= expensiveCost ? CostClass.EXPENSIVE : CostClass.CHEAP;
+    }
+
+    /**
+     * @param predicate the predicate, null for all the documents
+     * @return the cost of the predicate
+     */
+    public int cost(Predicate predicate) {
+        return predicate == null ? 1 : cost((Expression<?>) predicate);
+    }
+
+    /**
+     * @param filter the mongo filter, without regex (see {@link com.ctl.springmongoquerydsl.jackson.BsonFilterTranslator})
+     * @return the cost of the filter, the same as the one of its predicate
+     */
+    public int cost(Document filter) {
+        // several conditions are an and
+        int cost = filter.size() > 1 ? 1 : 0;
+        for (Map.Entry<String, Object> condition : filter.entrySet()) {
+            cost += 1;
+            if (condition.getValue() instanceof List) {
+                for (Object element : (List<?>) condition.getValue()) {
+                    cost += cost((Document) element);
+                }
+            } else if (condition.getValue() instanceof Document) {
+                for (Object value : ((Document) condition.getValue()).values()) {
+                    if (value instanceof Collection) {
+                        cost += ((Collection<?>) value).size() / 100;
+                    }
+                }
+            }
+        }
+        return cost;
+    }
+
+    private int cost(Expression<?> expression) {
+        if (!(expression instanceof Operation)) {
+            return 0;
+        }
+        Operation<?> operation = (Operation<?>) expression;
+        int cost = 1;
+        if ((operation.getOperator() == Ops.IN || operation.getOperator() == Ops.NOT_IN) && operation.getArgs().size() == 2
+                && operation.getArg(1) instanceof Constant && ((Constant<?>) operation.getArg(1)).getConstant() instanceof Collection) {
+            cost += ((Collection<?>) ((Constant<?>) operation.getArg(1)).getConstant()).size() / 100;
+        }
+        Optional<QueryDslOperator> operator = QueryDslOperator.findFromDsl(operation.getOperator());
+        if (operator.isPresent() && QueryComplexityLimits.isRegex(operator.get()) && operation.getArg(0) instanceof Path
+                && !indexedPaths.isIndexedPath((Path<?>) operation.getArg(0))) {
+            cost += UNINDEXED_REGEX_COST;
+        }
+        for (Expression<?> arg : operation.getArgs()) {
+            cost += cost(arg);
+        }
+        return cost;
+    }
+
+    /**
+     * A permit of a cost class, released once by {@link #close()}
+     */
+    public static final class Permit implements AutoCloseable {
+
+        private final Semaphore permits;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(Semaphore permits) {
+            this.permits = permits;
+        }
+
+        /**
+         * @param cursor the cursor of the query
+         * @return the same cursor, releasing the permit when it is closed
+         */
+        public <T> CloseableIterator<T> releasedOnClose(CloseableIterator<T> cursor) {
+            return new CloseableIterator<T>() {
+                @Override
+                public boolean hasNext() {
+                    return cursor.hasNext();
+                }
+
+                @Override
+                public T next() {
+                    return cursor.next();
+                }
+
+                @Override
+                public void close() {
+                    try {
+                        cursor.close();
+                    } finally {
+                        Permit.this.close();
+                    }
+                }
+            };
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        }
+    }
+}
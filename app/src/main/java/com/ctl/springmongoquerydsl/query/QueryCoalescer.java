@@ -0,0 +1,135 @@
+package com.ctl.springmongoquerydsl.query;
+
+import com.querydsl.core.types.Predicate;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Run the identical queries arriving at the same time once : the first one runs the query in its own thread, the
+ * others wait for its result instead of sending the same query to mongo. The queries are identical when their
+ * {@link PredicateCanonicalizer#canonicalJson(Predicate) canonical json} is the same.
+ * <p>
+ * A waiter gives up after the timeout, or when its thread is interrupted, without cancelling the running query :
+ * the other waiters still get its result. Nothing is kept once the query is done, see
+ * {@link com.ctl.springmongoquerydsl.dao.QueryResultCache} for that.
+ *
+ * @param <T> the document type
+ */
+public class QueryCoalescer<T> {
+
+    /**
+     * the running queries, by canonical json
+     */
+    private final ConcurrentMap<String, CompletableFuture<List<T>>> inFlight = new ConcurrentHashMap<>();
+
+    private final long timeoutMillis;
+
+    private final AtomicLong executions = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+
+    /**
+     * Default constructor of {@link QueryCoalescer}
+     *
+     * @param timeoutMillis the time a query waits for an identical running query
+     */
+    public QueryCoalescer(long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Run the query, or wait for the result of the identical query already running
+     *
+     * @param predicate the optimized predicate, null for all the documents
+     * @param loader    the query of the documents
+     * @return the documents, shared by the identical queries : they must not be modified
+     * @throws QueryRejectedException if the identical query has not completed within the timeout
+     */
+    public List<T> execute(Predicate predicate, Function<Predicate, List<T>> loader) {
+        String key = PredicateCanonicalizer.canonicalJson(predicate);
+        CompletableFuture<List<T>> future = new CompletableFuture<>();
+        CompletableFuture<List<T>> running = inFlight.putIfAbsent(key, future);
+        if (running != null) {
+            coalesced.incrementAndGet();
+            return await(running);
+        }
+        executions.incrementAndGet();
+        try {
+            List<T> documents = Collections.unmodifiableList(loader.apply(predicate));
+            future.complete(documents);
+            return documents;
+        } catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    private List<T> await(CompletableFuture<List<T>> running) {
+        try {
+            return running.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            timeouts.incrementAndGet();
+            throw new QueryRejectedException("The identical query in progress has not completed within " + timeoutMillis + " ms");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new QueryRejectedException("Interrupted while waiting for the identical query in progress");
+        } catch (ExecutionException e) {
+            // the waiters get the failure of the query they waited for
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * @return the number of queries actually run
+     */
+    public long getExecutionCount() {
+        return executions.get();
+    }
+
+    /**
+     * @return the number of queries which waited for an identical running query
+     */
+    public long getCoalescedCount() {
+        return coalesced.get();
+    }
+
+    /**
+     * @return the number of waiters which gave up after the timeout
+     */
+    public long getTimeoutCount() {
+        return timeouts.get();
+    }
+
+    /**
+     * @return the share of the queries answered by an identical running query, between 0 and 1
+     */
+    public double getCoalescingRatio() {
+        long shared = coalesced.get();
+        long total = shared + executions.get();
+        return total == 0 ? 0 : (double) shared / total;
+    }
+
+    /**
+     * @return the number of queries running
+     */
+    public int inFlight() {
+        return inFlight.size();
+    }
+}
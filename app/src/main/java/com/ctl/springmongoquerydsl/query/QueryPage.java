@@ -0,0 +1,26 @@
+package com.ctl.springmongoquerydsl.query;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A page of results of a {@link QueryRequest}
+ */
+@Getter
+@AllArgsConstructor
+public class QueryPage<T> {
+
+    /**
+     * the documents of the page
+     */
+    private final List<T> content;
+
+    /**
+     * the order by values of the last document, to send as searchAfter to get the next page.
+     * null when there is no next page.
+     */
+    private final Map<String, Object> searchAfter;
+}
@@ -0,0 +1,12 @@
+package com.ctl.springmongoquerydsl.query;
+
+/**
+ * The query has not been run because too many queries of its cost class are running, or it has waited too long
+ * for an identical query
+ */
+public class QueryRejectedException extends RuntimeException {
+
+    public QueryRejectedException(String message) {
+        super(message);
+    }
+}
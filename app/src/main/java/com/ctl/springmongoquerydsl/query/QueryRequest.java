@@ -0,0 +1,47 @@
+package com.ctl.springmongoquerydsl.query;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * A json query : predicate, order bys and pagination.
+ * <p>
+ * ex : { "predicate" : { "person.family" : "Marsh" }, "orderBy" : { "person.name" : "ASC" }, "limit" : 20,
+ * "searchAfter" : { "person.name" : "Randy", "person.id" : "5af0..." } }
+ */
+@Getter
+@Setter
+public class QueryRequest {
+
+    /**
+     * the json predicate, see {@link com.ctl.springmongoquerydsl.jackson.DefaultQueryDslDeserializer}
+     */
+    private JsonNode predicate;
+
+    /**
+     * the json order bys : path - ASC / DESC
+     */
+    private JsonNode orderBy;
+
+    /**
+     * number of documents to skip, prefer searchAfter for deep pages
+     */
+    private Long offset;
+
+    /**
+     * maximum number of documents to return
+     */
+    private Integer limit;
+
+    /**
+     * keyset pagination : the order by values of the last document of the previous page
+     * (the searchAfter of the previous {@link QueryPage})
+     */
+    private JsonNode searchAfter;
+
+    /**
+     * the fields to return : path - 1 to include / 0 to exclude, all the fields by default
+     */
+    private JsonNode projection;
+}
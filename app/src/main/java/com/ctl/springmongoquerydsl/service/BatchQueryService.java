@@ -0,0 +1,132 @@
+package com.ctl.springmongoquerydsl.service;
+
+import com.ctl.springmongoquerydsl.jackson.DefaultQueryDslDeserializer.DSLJsonDeserializerException;
+import com.ctl.springmongoquerydsl.query.BatchQueryResult;
+import com.ctl.springmongoquerydsl.query.InvalidQueryException;
+import com.ctl.springmongoquerydsl.query.QueryPage;
+import com.ctl.springmongoquerydsl.query.QueryRequest;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Run a batch of named json queries concurrently, on a bounded executor.
+ * <p>
+ * Each query succeeds or fails on its own : the errors are reported next to the results of the other queries.
+ */
+@Slf4j
+@Service
+public class BatchQueryService {
+
+    private final PersonQueryService personQueryService;
+
+    private final ObjectMapper objectMapper;
+
+    private final ExecutorService executor;
+
+    private final int maxQueries;
+
+    private final long timeoutMillis;
+
+    @Autowired
+    public BatchQueryService(PersonQueryService personQueryService,
+                             ObjectMapper objectMapper,
+                             @Qualifier("batchQueryExecutor") ExecutorService executor,
+                             @Value("${querydsl.batch.max-queries:50}") int maxQueries,
+                             @Value("${querydsl.batch.timeout-ms:10000}") long timeoutMillis) {
+        this.personQueryService = personQueryService;
+        this.objectMapper = objectMapper;
+        this.executor = executor;
+        this.maxQueries = maxQueries;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Run the queries of a batch
+     *
+     * @param batch an object of named json queries, or an array of json queries named by their index
+     * @return the result of each query, by name, in the order of the batch
+     */
+    public Map<String, BatchQueryResult> query(JsonNode batch) {
+        if (!batch.isObject() && !batch.isArray()) {
+            throw new InvalidQueryException("The batch has to be an object of named queries or an array of queries");
+        }
+        if (batch.size() > maxQueries) {
+            throw new InvalidQueryException("The batch can not have more than " + maxQueries + " queries");
+        }
+        Map<String, BatchQueryResult> results = new LinkedHashMap<>();
+        Map<String, Future<QueryPage<Object>>> futures = new LinkedHashMap<>();
+        Iterator<Entry<String, JsonNode>> queries = batch.isObject() ? batch.fields() : indexed(batch);
+        while (queries.hasNext()) {
+            Entry<String, JsonNode> query = queries.next();
+            // keeps the position of the query
+            results.put(query.getKey(), null);
+            try {
+                QueryRequest request = objectMapper.treeToValue(query.getValue(), QueryRequest.class);
+                futures.put(query.getKey(), executor.submit(() -> personQueryService.query(request)));
+            } catch (JsonProcessingException e) {
+                results.put(query.getKey(), BatchQueryResult.failed("The query is invalid : " + e.getOriginalMessage()));
+            } catch (RejectedExecutionException e) {
+                results.put(query.getKey(), BatchQueryResult.failed("Too many queries are running, retry later"));
+            }
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        for (Entry<String, Future<QueryPage<Object>>> future : futures.entrySet()) {
+            results.put(future.getKey(), await(future.getValue(), deadline));
+        }
+        return results;
+    }
+
+    private BatchQueryResult await(Future<QueryPage<Object>> future, long deadline) {
+        try {
+            return BatchQueryResult.of(future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+        } catch (ExecutionException e) {
+            return BatchQueryResult.failed(errorMessage(e.getCause()));
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            return BatchQueryResult.failed("The query has timed out after " + timeoutMillis + " ms");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            return BatchQueryResult.failed("The batch has been interrupted");
+        }
+    }
+
+    /**
+     * The error reported for a failed query, like the response of a single query
+     */
+    private static String errorMessage(Throwable error) {
+        if (error instanceof DSLJsonDeserializerException) {
+            return error.getCause() == null ? error.getMessage() : error.getMessage() + " : " + error.getCause().getMessage();
+        } else if (error instanceof InvalidQueryException) {
+            return error.getMessage();
+        }
+        log.error("batch query failed", error);
+        return "The query has failed : " + error.getClass().getSimpleName();
+    }
+
+    private static Iterator<Entry<String, JsonNode>> indexed(JsonNode array) {
+        Map<String, JsonNode> queries = new LinkedHashMap<>();
+        for (int i = 0; i < array.size(); i++) {
+            queries.put(Integer.toString(i), array.get(i));
+        }
+        return queries.entrySet().iterator();
+    }
+}
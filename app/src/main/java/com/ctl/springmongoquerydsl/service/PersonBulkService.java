@@ -0,0 +1,267 @@
+package com.ctl.springmongoquerydsl.service;
+
+import com.ctl.springmongoquerydsl.dao.MongoPredicateSerializer;
+import com.ctl.springmongoquerydsl.dao.QueryResultCache;
+import com.ctl.springmongoquerydsl.jackson.DefaultQueryDslDeserializer;
+import com.ctl.springmongoquerydsl.metrics.QueryMetrics;
+import com.ctl.springmongoquerydsl.model.Person;
+import com.ctl.springmongoquerydsl.query.BulkWriteReport;
+import com.ctl.springmongoquerydsl.query.InvalidQueryException;
+import com.ctl.springmongoquerydsl.utils.MyPathUtils;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Predicate;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mapping.PropertyHandler;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import org.springframework.data.mongodb.core.query.BasicQuery;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+
+/**
+ * Write the persons in bulk : the body is a json array read one element at a time, the elements are sent to
+ * mongo by batches, so the memory used depends on the batch size and not on the size of the body.
+ * <p>
+ * An ordered bulk stops at the first failed write, an unordered bulk writes all the documents it can.
+ */
+@Service
+public class PersonBulkService {
+
+    private final MongoOperations mongoOperations;
+
+    private final ObjectMapper objectMapper;
+
+    private final DefaultQueryDslDeserializer<Person> deserializer;
+
+    private final Optional<QueryResultCache<Person>> resultCache;
+
+    private final QueryMetrics queryMetrics;
+
+    private final MongoPredicateSerializer serializer;
+
+    private final int batchSize;
+
+    @Autowired
+    public PersonBulkService(MongoOperations mongoOperations,
+                             ObjectMapper objectMapper,
+                             DefaultQueryDslDeserializer<Person> deserializer,
+                             Optional<QueryResultCache<Person>> resultCache,
+                             QueryMetrics queryMetrics,
+                             @Value("${querydsl.bulk.batch-size:1000}") int batchSize) {
+        this.mongoOperations = mongoOperations;
+        this.serializer = new MongoPredicateSerializer(mongoOperations.getConverter().getMappingContext());
+        this.objectMapper = objectMapper;
+        this.deserializer = deserializer;
+        this.resultCache = resultCache;
+        this.queryMetrics = queryMetrics;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Insert the persons
+     *
+     * @param body    a json array of persons
+     * @param ordered true to stop at the first failed insert
+     * @return the report of the bulk
+     */
+    public BulkWriteReport insert(InputStream body, boolean ordered) {
+        return write(body, ordered, (bulk, element) -> bulk.insert(read(element)));
+    }
+
+    /**
+     * Insert or replace the persons, by id : the fields which are null or missing in the person are removed from
+     * the stored document. The persons without id are inserted.
+     *
+     * @param body    a json array of persons
+     * @param ordered true to stop at the first failed write
+     * @return the report of the bulk
+     */
+    public BulkWriteReport upsert(InputStream body, boolean ordered) {
+        List<String> fieldNames = new ArrayList<>();
+        mongoOperations.getConverter().getMappingContext().getRequiredPersistentEntity(Person.class)
+                .doWithProperties((PropertyHandler<MongoPersistentProperty>) property -> {
+                    if (!property.isIdProperty()) {
+                        fieldNames.add(property.getFieldName());
+                    }
+                });
+        return write(body, ordered, (bulk, element) -> {
+            Person person = read(element);
+            if (person.getId() == null) {
+                bulk.insert(person);
+                return;
+            }
+            Document document = new Document();
+            mongoOperations.getConverter().write(person, document);
+            Object id = document.remove("_id");
+            // the bulk operations have no replace : the written fields are set and the other ones unset
+            Document replacement = new Document();
+            if (!document.isEmpty()) {
+                replacement.append("$set", document);
+            }
+            Document unset = new Document();
+            for (String fieldName : fieldNames) {
+                if (!document.containsKey(fieldName)) {
+                    unset.append(fieldName, "");
+                }
+            }
+            if (!unset.isEmpty()) {
+                replacement.append("$unset", unset);
+            }
+            bulk.upsert(new Query(Criteria.where("_id").is(id)), Update.fromDocument(replacement));
+        });
+    }
+
+    /**
+     * Update the persons matching json predicates
+     *
+     * @param body    a json array of updates : { "predicate" : { "person.family" : "Marsh" }, "set" : { "person.age" : 11 } }
+     * @param ordered true to stop at the first failed update
+     * @return the report of the bulk
+     */
+    public BulkWriteReport update(InputStream body, boolean ordered) {
+        return write(body, ordered, (bulk, element) -> {
+            if (!element.path("set").isObject() || element.get("set").size() == 0) {
+                throw new InvalidQueryException("An update needs a set object : " + element);
+            }
+            Predicate predicate = element.hasNonNull("predicate")
+                    ? deserializer.deserializePredicate(element.get("predicate"), Person.class)
+                    : null;
+            Update update = new Update();
+            Iterator<Entry<String, JsonNode>> fields = element.get("set").fields();
+            while (fields.hasNext()) {
+                Entry<String, JsonNode> field = fields.next();
+                Path<?> path = deserializer.resolvePath(field.getKey(), Person.class);
+                Object value = field.getValue().isNull() ? null : deserializer.getConverter().convert(field.getValue(), path.getType());
+                update.set(MyPathUtils.toPropertyPath(path), value);
+            }
+            bulk.updateMulti(new BasicQuery(serializer.toDocument(predicate)), update);
+        });
+    }
+
+    /**
+     * Read the json array element by element, and write them by batches. An invalid element is reported as a
+     * failure : an ordered bulk stops there, an unordered one skips it. A malformed body stops the bulk, the elements
+     * read before are written and reported.
+     */
+    private BulkWriteReport write(InputStream body, boolean ordered, BiConsumer<BulkOperations, JsonNode> operation) {
+        BulkMode mode = ordered ? BulkMode.ORDERED : BulkMode.UNORDERED;
+        BulkWriteReport report = new BulkWriteReport();
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new InvalidQueryException("The body has to be a json array");
+            }
+            BulkOperations bulk = mongoOperations.bulkOps(mode, Person.class);
+            // the index in the body of each operation of the batch
+            long[] indexes = new long[batchSize];
+            int size = 0;
+            long index = 0;
+            boolean stopped = false;
+            try {
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    JsonNode element = objectMapper.readTree(parser);
+                    report.received(1);
+                    try {
+                        operation.accept(bulk, element);
+                    } catch (IllegalArgumentException e) {
+                        report.failed(index, "Invalid element : " + e.getMessage());
+                        if (ordered) {
+                            stopped = true;
+                            break;
+                        }
+                        index++;
+                        continue;
+                    }
+                    indexes[size++] = index++;
+                    if (size == batchSize) {
+                        if (!execute(bulk, indexes, report, ordered)) {
+                            return report;
+                        }
+                        bulk = mongoOperations.bulkOps(mode, Person.class);
+                        size = 0;
+                    }
+                }
+                if (!stopped && parser.getCurrentToken() != JsonToken.END_ARRAY) {
+                    report.failed(index, "The elements of the array have to be objects");
+                }
+            } catch (IOException e) {
+                report.failed(index, "The body is not a valid json array : " + e.getMessage());
+            }
+            if (size > 0) {
+                execute(bulk, Arrays.copyOf(indexes, size), report, ordered);
+            }
+            return report;
+        } catch (IOException e) {
+            throw new InvalidQueryException("The body is not a valid json array : " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Send a batch to mongo
+     *
+     * @param indexes the index in the body of each operation of the batch
+     * @return false if the bulk has to stop
+     */
+    private boolean execute(BulkOperations bulk, long[] indexes, BulkWriteReport report, boolean ordered) {
+        long start = queryMetrics.start();
+        try {
+            report.add(bulk.execute());
+            return true;
+        } catch (RuntimeException e) {
+            MongoBulkWriteException error = bulkWriteError(e);
+            if (error == null) {
+                throw e;
+            }
+            report.add(error.getWriteResult());
+            for (BulkWriteError writeError : error.getWriteErrors()) {
+                report.failed(indexes[writeError.getIndex()], writeError.getMessage());
+            }
+            return !ordered;
+        } finally {
+            queryMetrics.executed(start, "bulk");
+            // the bulk writes do not publish the mongo events of the invalidation listener
+            resultCache.ifPresent(QueryResultCache::invalidateAll);
+        }
+    }
+
+    private Person read(JsonNode element) {
+        try {
+            return objectMapper.treeToValue(element, Person.class);
+        } catch (IOException e) {
+            throw new InvalidQueryException("Not a valid person : " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * The write errors of the batch, the template may have translated them
+     */
+    private static MongoBulkWriteException bulkWriteError(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof MongoBulkWriteException) {
+                return (MongoBulkWriteException) cause;
+            }
+        }
+        return null;
+    }
+}
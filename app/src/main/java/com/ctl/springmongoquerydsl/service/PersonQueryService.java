@@ -0,0 +1,308 @@
+package com.ctl.springmongoquerydsl.service;
+
+import com.ctl.springmongoquerydsl.dao.MergingCursor;
+import com.ctl.springmongoquerydsl.dao.PartitionedQueryExecutor;
+import com.ctl.springmongoquerydsl.dao.PartitionedResult;
+import com.ctl.springmongoquerydsl.dao.PersonRepository;
+import com.ctl.springmongoquerydsl.jackson.DefaultQueryDslDeserializer;
+import com.ctl.springmongoquerydsl.metrics.QueryMetrics;
+import com.ctl.springmongoquerydsl.model.Person;
+import com.ctl.springmongoquerydsl.query.AggregateFunction;
+import com.ctl.springmongoquerydsl.query.AggregateRequest;
+import com.ctl.springmongoquerydsl.query.IndexPlanner;
+import com.ctl.springmongoquerydsl.query.InvalidQueryException;
+import com.ctl.springmongoquerydsl.query.KeysetPagination;
+import com.ctl.springmongoquerydsl.query.PredicateOptimizer;
+import com.ctl.springmongoquerydsl.query.Projection;
+import com.ctl.springmongoquerydsl.query.QueryAdmission;
+import com.ctl.springmongoquerydsl.query.QueryPage;
+import com.ctl.springmongoquerydsl.query.QueryRequest;
+import com.ctl.springmongoquerydsl.utils.MyPathUtils;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Predicate;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.GroupOperation;
+import org.springframework.data.mongodb.core.aggregation.GroupOperation.GroupOperationBuilder;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.querydsl.QSort;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.stream.Collectors;
+
+/**
+ * Run the json queries on the persons
+ */
+@Service
+public class PersonQueryService {
+
+    /**
+     * alias of the number of documents of a group
+     */
+    private static final String COUNT = "count";
+
+    private final PersonRepository personRepository;
+
+    private final DefaultQueryDslDeserializer<Person> deserializer;
+
+    private final IndexPlanner indexPlanner;
+
+    private final QueryMetrics queryMetrics;
+
+    private final QueryAdmission queryAdmission;
+
+    private final PartitionedQueryExecutor<Person> partitionedQueryExecutor;
+
+    private final MongoMappingContext mappingContext;
+
+    /**
+     * the name of the id property, used as tie breaker of the order bys
+     */
+    private final String idProperty;
+
+    private final int maxLimit;
+
+    private final long maxOffset;
+
+    @Autowired
+    public PersonQueryService(PersonRepository personRepository,
+                              DefaultQueryDslDeserializer<Person> deserializer,
+                              MongoMappingContext mappingContext,
+                              IndexPlanner indexPlanner,
+                              QueryMetrics queryMetrics,
+                              QueryAdmission queryAdmission,
+                              PartitionedQueryExecutor<Person> partitionedQueryExecutor,
+                              @Value("${querydsl.query.max-limit:1000}") int maxLimit,
+                              @Value("${querydsl.query.max-offset:10000}") long maxOffset) {
+        this.personRepository = personRepository;
+        this.deserializer = deserializer;
+        this.indexPlanner = indexPlanner;
+        this.queryMetrics = queryMetrics;
+        this.queryAdmission = queryAdmission;
+        this.partitionedQueryExecutor = partitionedQueryExecutor;
+        this.mappingContext = mappingContext;
+        this.idProperty = mappingContext.getRequiredPersistentEntity(Person.class).getRequiredIdProperty().getName();
+        this.maxLimit = maxLimit;
+        this.maxOffset = maxOffset;
+    }
+
+    /**
+     * Run a json query : predicate, order bys, offset / limit, keyset pagination and projection
+     *
+     * @param request the json query
+     * @return the page of persons, or of their projected properties
+     */
+    @SuppressWarnings("unchecked")
+    public QueryPage<Object> query(QueryRequest request) {
+        Predicate predicate = request.getPredicate() == null ? null
+                : deserializer.deserializePredicate(request.getPredicate(), Person.class);
+        List<OrderSpecifier<?>> orderBys = new ArrayList<>();
+        if (request.getOrderBy() != null) {
+            orderBys.addAll((List) deserializer.deserializeOrderBys(request.getOrderBy(), Person.class));
+        }
+        long offset = request.getOffset() == null ? 0 : request.getOffset();
+        int limit = request.getLimit() == null ? maxLimit : request.getLimit();
+        if (limit <= 0 || limit > maxLimit) {
+            throw new InvalidQueryException("The limit has to be between 1 and " + maxLimit);
+        }
+        if (offset < 0 || offset > maxOffset) {
+            throw new InvalidQueryException("The offset has to be between 0 and " + maxOffset + ", use searchAfter for deep pages");
+        }
+
+        // only the requested predicate is checked, the keyset predicate follows the order bys
+        indexPlanner.check(PredicateOptimizer.optimize(predicate, mappingContext));
+
+        // pages need a total order : the id is the last order by
+        orderBys = KeysetPagination.withTieBreaker(orderBys, idPath(orderBys));
+        if (request.getSearchAfter() != null) {
+            predicate = ExpressionUtils.allOf(predicate,
+                    KeysetPagination.after(orderBys, request.getSearchAfter(), deserializer.getConverter()));
+        }
+
+        Projection projection = request.getProjection() == null ? null
+                : Projection.parse(request.getProjection(), deserializer, Person.class, idProperty);
+        // the order by paths are always fetched, they are needed for the next searchAfter
+        Document fields = projection == null ? null : projection.toFields(orderBys.stream()
+                .map(orderBy -> MyPathUtils.toPropertyPath((Path<?>) orderBy.getTarget()))
+                .collect(Collectors.toList()));
+
+        predicate = PredicateOptimizer.optimize(predicate, mappingContext);
+        if (PredicateOptimizer.isNever(predicate)) {
+            return new QueryPage<>(new ArrayList<>(), null);
+        }
+        long start = queryMetrics.start();
+        Predicate query = predicate;
+        QSort sort = new QSort(orderBys);
+        List<Object> result;
+        Map<String, Object> searchAfter = null;
+        if (projection == null) {
+            List<Person> content = queryAdmission.admit(query, () -> personRepository.findRange(query, sort, offset, limit));
+            if (content.size() == limit) {
+                searchAfter = KeysetPagination.valuesOf(content.get(content.size() - 1), orderBys);
+            }
+            result = new ArrayList<>(content);
+        } else {
+            // the projected documents are not mapped to persons, the missing fields would not fit the constructor
+            List<Document> content = queryAdmission.admit(query, () -> personRepository.findProjected(query, sort, fields, offset, limit));
+            if (content.size() == limit) {
+                searchAfter = KeysetPagination.valuesOf(content.get(content.size() - 1), orderBys);
+            }
+            result = content.stream().map(projection::project).collect(Collectors.toList());
+        }
+        queryMetrics.executed(start, "query");
+        return new QueryPage<>(result, searchAfter);
+    }
+
+    /**
+     * Run a json query on all the partitions of the persons, the documents of the partitions are merged by the
+     * order bys. The offset and the projection are not supported.
+     *
+     * @param request the json query : predicate, order bys, limit and searchAfter
+     * @return the merged cursor, it has to be closed, and the failed partitions
+     */
+    @SuppressWarnings("unchecked")
+    public PartitionedResult<Person> findPartitioned(QueryRequest request) {
+        if (request.getOffset() != null || request.getProjection() != null) {
+            throw new InvalidQueryException("The offset and the projection are not supported on the partitions, use searchAfter");
+        }
+        Predicate predicate = request.getPredicate() == null ? null
+                : deserializer.deserializePredicate(request.getPredicate(), Person.class);
+        List<OrderSpecifier<?>> orderBys = new ArrayList<>();
+        if (request.getOrderBy() != null) {
+            orderBys.addAll((List) deserializer.deserializeOrderBys(request.getOrderBy(), Person.class));
+        }
+        int limit = request.getLimit() == null ? maxLimit : request.getLimit();
+        if (limit <= 0 || limit > maxLimit) {
+            throw new InvalidQueryException("The limit has to be between 1 and " + maxLimit);
+        }
+        indexPlanner.check(PredicateOptimizer.optimize(predicate, mappingContext));
+
+        // the merge needs a total order : the id is the last order by
+        orderBys = KeysetPagination.withTieBreaker(orderBys, idPath(orderBys));
+        if (request.getSearchAfter() != null) {
+            predicate = ExpressionUtils.allOf(predicate,
+                    KeysetPagination.after(orderBys, request.getSearchAfter(), deserializer.getConverter()));
+        }
+        predicate = PredicateOptimizer.optimize(predicate, mappingContext);
+        if (PredicateOptimizer.isNever(predicate)) {
+            return new PartitionedResult<>(new MergingCursor<Person>(Collections.emptyList(), orderBys, limit), Collections.emptyList());
+        }
+        // the permit is held until the merged cursor is closed
+        QueryAdmission.Permit permit = queryAdmission.acquire(predicate);
+        long start = queryMetrics.start();
+        PartitionedResult<Person> result;
+        try {
+            result = partitionedQueryExecutor.stream(predicate, orderBys, limit);
+        } catch (RuntimeException e) {
+            permit.close();
+            throw e;
+        }
+        queryMetrics.executed(start, "partitioned");
+        return new PartitionedResult<>(permit.releasedOnClose(result.getCursor()), result.getFailedPartitions());
+    }
+
+    /**
+     * Run a json aggregation in the mongo pipeline : the groups are counted and the functions computed by mongo
+     *
+     * @param request the json aggregation
+     * @return one row per group : { "group" : { path : value }, "count" : n, "min" : { path : value }, ... }
+     */
+    @SuppressWarnings("unchecked")
+    public List<Map<String, Object>> aggregate(AggregateRequest request) {
+        Predicate predicate = request.getPredicate() == null ? null
+                : PredicateOptimizer.optimize(deserializer.deserializePredicate(request.getPredicate(), Person.class), mappingContext);
+        indexPlanner.check(predicate);
+        if (PredicateOptimizer.isNever(predicate)) {
+            return Collections.emptyList();
+        }
+
+        List<String> groupBy = request.getGroupBy() == null ? Collections.emptyList() : request.getGroupBy();
+        List<String> groupProperties = new ArrayList<>();
+        for (String path : groupBy) {
+            String property = MyPathUtils.toPropertyPath(deserializer.resolvePath(path, Person.class));
+            if (property.contains(".")) {
+                throw new InvalidQueryException("Only the top level paths can be grouped : " + path);
+            }
+            groupProperties.add(property);
+        }
+        GroupOperation group = Aggregation.group(groupProperties.toArray(new String[groupProperties.size()])).count().as(COUNT);
+
+        // the alias of each function of each json path
+        Map<String, Map<AggregateFunction, String>> aliases = new LinkedHashMap<>();
+        if (request.getAggregates() != null) {
+            for (Entry<String, List<String>> aggregate : request.getAggregates().entrySet()) {
+                Path<?> path = deserializer.resolvePath(aggregate.getKey(), Person.class);
+                String property = MyPathUtils.toPropertyPath(path);
+                for (String json : aggregate.getValue()) {
+                    AggregateFunction function = AggregateFunction.getFromJson(json);
+                    if (function.isNumeric() && !isNumeric(path.getType())) {
+                        throw new InvalidQueryException("The path " + aggregate.getKey() + " is not numeric, " + json + " can not be computed");
+                    }
+                    String alias = function.getJson() + "_" + property.replace('.', '_');
+                    group = builder(group, function, property).as(alias);
+                    aliases.computeIfAbsent(aggregate.getKey(), key -> new LinkedHashMap<>()).put(function, alias);
+                }
+            }
+        }
+
+        long start = queryMetrics.start();
+        GroupOperation groupOperation = group;
+        List<Document> documents = queryAdmission.admit(predicate, () -> personRepository.aggregate(predicate, groupOperation));
+        queryMetrics.executed(start, "aggregate");
+
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (Document document : documents) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            Map<String, Object> groupValues = new LinkedHashMap<>();
+            Object id = document.get("_id");
+            for (int i = 0; i < groupBy.size(); i++) {
+                // a single field is the id itself, several fields are an object
+                groupValues.put(groupBy.get(i), groupBy.size() == 1 ? id : ((Document) id).get(groupProperties.get(i)));
+            }
+            row.put("group", groupValues);
+            row.put(COUNT, document.get(COUNT));
+            aliases.forEach((path, functions) -> functions.forEach((function, alias) ->
+                    ((Map<String, Object>) row.computeIfAbsent(function.getJson(), key -> new LinkedHashMap<>()))
+                            .put(path, document.get(alias))));
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private static GroupOperationBuilder builder(GroupOperation group, AggregateFunction function, String property) {
+        switch (function) {
+            case MIN:
+                return group.min(property);
+            case MAX:
+                return group.max(property);
+            case AVG:
+                return group.avg(property);
+            default:
+                return group.sum(property);
+        }
+    }
+
+    private static boolean isNumeric(Class<?> type) {
+        return Number.class.isAssignableFrom(type)
+                || type.isPrimitive() && !type.equals(boolean.class) && !type.equals(char.class);
+    }
+
+    /**
+     * The id path, with the same root variable as the order bys
+     */
+    private Path<?> idPath(List<OrderSpecifier<?>> orderBys) {
+        String root = orderBys.isEmpty() ? "person"
+                : ((Path<?>) orderBys.get(0).getTarget()).getRoot().getMetadata().getName();
+        return deserializer.resolvePath(root + "." + idProperty, Person.class);
+    }
+}
@@ -0,0 +1,252 @@
+package com.ctl.springmongoquerydsl.snapshot;
+
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.querydsl.core.types.Predicate;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
+import org.bson.Document;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A local snapshot of a small collection, to answer the queries without a round trip to mongo (see
+ * {@link SnapshotEvaluator}). The predicates which can not be evaluated locally have to go to mongo.
+ * <p>
+ * The snapshot is refreshed by polling : the collection is reloaded every refresh interval. With the change
+ * stream (needs a replica set), only the changed documents are read and the columns are rebuilt at most once per
+ * refresh interval. The change stream is opened before the collection is loaded and its changes are applied in
+ * order once the load is done, so that the writes made during the load are not missed. When the change stream
+ * stops, the snapshot goes back to polling. The writes are seen after
+ * the next refresh. A collection larger than the maximum number of documents is not kept, all the queries go to
+ * mongo.
+ */
+@Slf4j
+public class CollectionSnapshot<T> {
+
+    private static final DocumentCodec DOCUMENT_CODEC = new DocumentCodec();
+
+    private final MongoOperations mongoOperations;
+
+    private final boolean changeStream;
+
+    private final Class<T> entityClass;
+
+    private final MongoPersistentEntity<?> entity;
+
+    private final long refreshMillis;
+
+    private final int maximumDocuments;
+
+    private final String collectionName;
+
+    /**
+     * the documents by _id, maintained from the change stream
+     */
+    private final Map<Object, T> documents = new LinkedHashMap<>();
+
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+
+    private volatile ColumnarSnapshot<T> snapshot;
+
+    /**
+     * true when the collection is over the maximum number of documents, logged once
+     */
+    private volatile boolean tooLarge;
+
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * the thread reading the change stream
+     */
+    private Thread watcher;
+
+    private volatile boolean running;
+
+    /**
+     * Default constructor of {@link CollectionSnapshot}
+     *
+     * @param mongoOperations         the mongo operations, loading the collection
+     * @param changeStream     true to watch the change stream, false to poll
+     * @param entityClass      the entity of the collection
+     * @param refreshMillis    the refresh interval
+     * @param maximumDocuments the maximum number of documents of the snapshot
+     */
+    public CollectionSnapshot(MongoOperations mongoOperations, boolean changeStream,
+                              Class<T> entityClass, long refreshMillis, int maximumDocuments) {
+        this.mongoOperations = mongoOperations;
+        this.changeStream = changeStream;
+        this.entityClass = entityClass;
+        this.entity = mongoOperations.getConverter().getMappingContext().getRequiredPersistentEntity(entityClass);
+        this.collectionName = entity.getCollection();
+        this.refreshMillis = refreshMillis;
+        this.maximumDocuments = maximumDocuments;
+    }
+
+    /**
+     * Load the collection and start to refresh it
+     */
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "snapshot-" + entityClass.getSimpleName());
+            thread.setDaemon(true);
+            return thread;
+        });
+        running = true;
+        if (!changeStream) {
+            startPolling();
+            return;
+        }
+        MongoCursor<ChangeStreamDocument<Document>> cursor;
+        try {
+            // the blocking watch returns once the change stream is open on the server : the changes made from now
+            // on, during the load included, are kept in the cursor until they are read
+            cursor = mongoOperations.getCollection(collectionName).watch().fullDocument(FullDocument.UPDATE_LOOKUP).iterator();
+        } catch (RuntimeException e) {
+            log.warn("The change stream of the {} snapshot could not be opened, it is refreshed by polling", entityClass.getSimpleName(), e);
+            startPolling();
+            return;
+        }
+        reload();
+        // the changes are applied after the load, in their order, by a single thread
+        watcher = new Thread(() -> watch(cursor), "snapshot-watch-" + entityClass.getSimpleName());
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    /**
+     * Stop the refreshes
+     */
+    public void stop() {
+        running = false;
+        if (watcher != null) {
+            watcher.interrupt();
+        }
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Find the documents matching the predicate in the snapshot
+     *
+     * @param predicate the queryDSL predicate, null for all the documents
+     * @return the documents, they must not be modified; empty if the snapshot is not loaded or the predicate can
+     * not be evaluated locally
+     */
+    public Optional<List<T>> find(Predicate predicate) {
+        ColumnarSnapshot<T> current = snapshot;
+        return current == null ? Optional.empty() : SnapshotEvaluator.evaluate(predicate, current);
+    }
+
+    /**
+     * @return the number of documents of the snapshot, -1 if it is not loaded
+     */
+    public int size() {
+        ColumnarSnapshot<T> current = snapshot;
+        return current == null ? -1 : current.size();
+    }
+
+    private void startPolling() {
+        scheduler.scheduleWithFixedDelay(this::reload, 0, refreshMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Reload all the documents
+     */
+    private void reload() {
+        try {
+            Query query = new Query().limit(maximumDocuments + 1);
+            List<Document> loaded = mongoOperations.find(query, Document.class, collectionName);
+            synchronized (documents) {
+                documents.clear();
+                for (Document document : loaded) {
+                    documents.put(document.get("_id"), mongoOperations.getConverter().read(entityClass, document));
+                }
+            }
+            rebuild();
+        } catch (RuntimeException e) {
+            log.warn("The {} snapshot could not be loaded", entityClass.getSimpleName(), e);
+        }
+    }
+
+    /**
+     * Read the change stream until the snapshot is stopped, or go back to polling if it fails
+     */
+    private void watch(MongoCursor<ChangeStreamDocument<Document>> cursor) {
+        try {
+            while (running) {
+                // waits up to the await time of the server for a change
+                ChangeStreamDocument<Document> change = cursor.tryNext();
+                if (change != null) {
+                    apply(change);
+                }
+            }
+        } catch (RuntimeException e) {
+            if (running) {
+                log.warn("The change stream of the {} snapshot has stopped, it is refreshed by polling", entityClass.getSimpleName(), e);
+                startPolling();
+            }
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * Apply a change of the change stream, the columns are rebuilt at the end of the refresh interval. Only the
+     * watcher thread applies the changes, after the initial load : a reload never overwrites a newer change.
+     */
+    private void apply(ChangeStreamDocument<Document> change) {
+        Object id = change.getDocumentKey() == null ? null : id(change.getDocumentKey());
+        synchronized (documents) {
+            if (change.getFullDocument() != null) {
+                documents.put(change.getFullDocument().get("_id"), mongoOperations.getConverter().read(entityClass, change.getFullDocument()));
+            } else if (id != null) {
+                // deleted, or updated then deleted before the lookup
+                documents.remove(id);
+            }
+        }
+        if (rebuildScheduled.compareAndSet(false, true)) {
+            scheduler.schedule(() -> {
+                rebuildScheduled.set(false);
+                rebuild();
+            }, refreshMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void rebuild() {
+        List<T> rows;
+        synchronized (documents) {
+            rows = documents.size() > maximumDocuments ? null : new ArrayList<>(documents.values());
+        }
+        if (rows == null) {
+            if (!tooLarge) {
+                log.warn("The {} collection has more than {} documents, it is not kept in memory", entityClass.getSimpleName(), maximumDocuments);
+            }
+            tooLarge = true;
+            snapshot = null;
+            return;
+        }
+        tooLarge = false;
+        snapshot = ColumnarSnapshot.of(rows, entity);
+    }
+
+    private static Object id(BsonDocument documentKey) {
+        return DOCUMENT_CODEC.decode(new BsonDocumentReader(documentKey), DecoderContext.builder().build()).get("_id");
+    }
+}
@@ -0,0 +1,150 @@
+package com.ctl.springmongoquerydsl.snapshot;
+
+import org.springframework.data.mapping.PersistentPropertyAccessor;
+import org.springframework.data.mapping.PropertyHandler;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable copy of the documents of a collection, with a column per top level property : an int array for
+ * the int properties, dictionary codes for the strings. The other properties have no column, the predicates on
+ * them are not evaluated locally.
+ * <p>
+ * The snapshot is rebuilt from the documents when they change, it is never modified.
+ */
+public class ColumnarSnapshot<T> {
+
+    private final List<T> rows;
+
+    private final Map<String, Object> columns;
+
+    private ColumnarSnapshot(List<T> rows, Map<String, Object> columns) {
+        this.rows = rows;
+        this.columns = columns;
+    }
+
+    /**
+     * Build the columns of the documents
+     *
+     * @param rows   the documents
+     * @param entity the mapping of the documents
+     * @return the snapshot
+     */
+    public static <T> ColumnarSnapshot<T> of(List<T> rows, MongoPersistentEntity<?> entity) {
+        List<T> copy = Collections.unmodifiableList(new ArrayList<>(rows));
+        List<PersistentPropertyAccessor> accessors = new ArrayList<>(copy.size());
+        for (T row : copy) {
+            accessors.add(entity.getPropertyAccessor(row));
+        }
+        Map<String, Object> columns = new HashMap<>();
+        entity.doWithProperties((PropertyHandler<MongoPersistentProperty>) property -> {
+            Class<?> type = property.getType();
+            if (type == int.class || type == Integer.class || type == short.class || type == Short.class
+                    || type == byte.class || type == Byte.class) {
+                columns.put(property.getName(), IntColumn.of(accessors, property));
+            } else if (type == String.class) {
+                columns.put(property.getName(), DictionaryColumn.of(accessors, property));
+            }
+        });
+        return new ColumnarSnapshot<>(copy, columns);
+    }
+
+    /**
+     * @return the documents, in the order of the rows
+     */
+    public List<T> getRows() {
+        return rows;
+    }
+
+    public int size() {
+        return rows.size();
+    }
+
+    /**
+     * @param property the top level property
+     * @return the column of the property : {@link IntColumn}, {@link DictionaryColumn} or null
+     */
+    Object getColumn(String property) {
+        return columns.get(property);
+    }
+
+    /**
+     * @param bitmap the selected rows
+     * @return the documents of the selected rows
+     */
+    public List<T> select(BitSet bitmap) {
+        List<T> selected = new ArrayList<>(bitmap.cardinality());
+        for (int row = bitmap.nextSetBit(0); row >= 0; row = bitmap.nextSetBit(row + 1)) {
+            selected.add(rows.get(row));
+        }
+        return selected;
+    }
+
+    /**
+     * The values of an integer property, the null values are flagged apart
+     */
+    static final class IntColumn {
+        final int[] values;
+        final BitSet nulls;
+
+        private IntColumn(int[] values, BitSet nulls) {
+            this.values = values;
+            this.nulls = nulls;
+        }
+
+        static IntColumn of(List<PersistentPropertyAccessor> accessors, MongoPersistentProperty property) {
+            int[] values = new int[accessors.size()];
+            BitSet nulls = new BitSet(accessors.size());
+            for (int row = 0; row < values.length; row++) {
+                Object value = accessors.get(row).getProperty(property);
+                if (value == null) {
+                    nulls.set(row);
+                } else {
+                    values[row] = ((Number) value).intValue();
+                }
+            }
+            return new IntColumn(values, nulls);
+        }
+    }
+
+    /**
+     * The values of a string property : the code of each row, -1 for null, and the distinct values by code
+     */
+    static final class DictionaryColumn {
+        final int[] codes;
+        final String[] dictionary;
+
+        private DictionaryColumn(int[] codes, String[] dictionary) {
+            this.codes = codes;
+            this.dictionary = dictionary;
+        }
+
+        static DictionaryColumn of(List<PersistentPropertyAccessor> accessors, MongoPersistentProperty property) {
+            int[] codes = new int[accessors.size()];
+            Map<String, Integer> codeOf = new HashMap<>();
+            List<String> dictionary = new ArrayList<>();
+            for (int row = 0; row < codes.length; row++) {
+                String value = (String) accessors.get(row).getProperty(property);
+                if (value == null) {
+                    codes[row] = -1;
+                    continue;
+                }
+                Integer code = codeOf.get(value);
+                if (code == null) {
+                    code = dictionary.size();
+                    codeOf.put(value, code);
+                    dictionary.add(value);
+                }
+                codes[row] = code;
+            }
+            return new DictionaryColumn(codes, dictionary.toArray(new String[dictionary.size()]));
+        }
+    }
+}
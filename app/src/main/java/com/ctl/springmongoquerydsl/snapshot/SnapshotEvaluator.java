@@ -0,0 +1,231 @@
+package com.ctl.springmongoquerydsl.snapshot;
+
+import com.ctl.springmongoquerydsl.snapshot.ColumnarSnapshot.DictionaryColumn;
+import com.ctl.springmongoquerydsl.snapshot.ColumnarSnapshot.IntColumn;
+import com.ctl.springmongoquerydsl.utils.MyPathUtils;
+import com.querydsl.core.types.Constant;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Operator;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Predicate;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.IntPredicate;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+/**
+ * Evaluate the queryDSL predicates on a {@link ColumnarSnapshot}, with the semantics of the mongo filters built
+ * by the queryDSL serializer (ex : $ne and $nin match the null values, the string operators are regex).
+ * <p>
+ * The predicate is compiled once into a test of a row : the string conditions are evaluated on the distinct
+ * values of the dictionary, the rows only compare codes. The rows are then scanned into a bitmap, in parallel
+ * by chunks of {@link #CHUNK_SIZE} rows. Supported : and, or, not, the comparisons, between, in and not in on
+ * the int columns; equality, in, not in and the string operators (except like) on the string columns.
+ */
+public final class SnapshotEvaluator {
+
+    /**
+     * number of rows scanned by a task, a multiple of 64 so that the chunks do not share a word of the bitmap
+     */
+    static final int CHUNK_SIZE = 1 << 16;
+
+    private SnapshotEvaluator() {
+    }
+
+    /**
+     * Select the documents of the snapshot matching the predicate
+     *
+     * @param predicate the queryDSL predicate, null for all the documents
+     * @param snapshot  the snapshot
+     * @return the matching documents, empty if the predicate can not be evaluated on the snapshot
+     */
+    public static <T> Optional<List<T>> evaluate(Predicate predicate, ColumnarSnapshot<T> snapshot) {
+        if (predicate == null) {
+            return Optional.of(snapshot.getRows());
+        }
+        IntPredicate test = compile(predicate, snapshot);
+        return test == null ? Optional.empty() : Optional.of(snapshot.select(scan(test, snapshot.size())));
+    }
+
+    /**
+     * @return the test of a row, null if the expression is not supported
+     */
+    static IntPredicate compile(Expression<?> expression, ColumnarSnapshot<?> snapshot) {
+        if (!(expression instanceof Operation)) {
+            return null;
+        }
+        Operation<?> operation = (Operation<?>) expression;
+        Operator operator = operation.getOperator();
+        if (operator == Ops.AND || operator == Ops.OR) {
+            List<IntPredicate> tests = new ArrayList<>();
+            for (Expression<?> arg : operation.getArgs()) {
+                IntPredicate test = compile(arg, snapshot);
+                if (test == null) {
+                    return null;
+                }
+                tests.add(test);
+            }
+            return tests.stream().reduce(operator == Ops.AND ? IntPredicate::and : IntPredicate::or).orElse(null);
+        }
+        if (operator == Ops.NOT) {
+            IntPredicate test = compile(operation.getArg(0), snapshot);
+            return test == null ? null : test.negate();
+        }
+        if (!(operation.getArg(0) instanceof Path) || operation.getArgs().size() < 2) {
+            return null;
+        }
+        Path<?> path = (Path<?>) operation.getArg(0);
+        if (path.getMetadata().getParent() == null || !path.getMetadata().getParent().equals(path.getRoot())) {
+            // only the top level properties have a column
+            return null;
+        }
+        List<Object> constants = new ArrayList<>();
+        for (Expression<?> arg : operation.getArgs().subList(1, operation.getArgs().size())) {
+            if (!(arg instanceof Constant)) {
+                return null;
+            }
+            constants.add(((Constant<?>) arg).getConstant());
+        }
+        Object column = snapshot.getColumn(MyPathUtils.toPropertyPath(path));
+        if (column instanceof IntColumn) {
+            return compileInt((IntColumn) column, operator, constants);
+        } else if (column instanceof DictionaryColumn) {
+            return compileString((DictionaryColumn) column, operator, constants.get(0));
+        }
+        return null;
+    }
+
+    private static IntPredicate compileInt(IntColumn column, Operator operator, List<Object> constants) {
+        int[] values = column.values;
+        BitSet nulls = column.nulls;
+        if (operator == Ops.IN || operator == Ops.NOT_IN) {
+            if (!(constants.get(0) instanceof Collection)) {
+                return null;
+            }
+            Set<Integer> set = new HashSet<>();
+            for (Object constant : (Collection<?>) constants.get(0)) {
+                Long value = toLong(constant);
+                if (value == null) {
+                    return null;
+                }
+                if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+                    set.add(value.intValue());
+                }
+            }
+            IntPredicate in = row -> !nulls.get(row) && set.contains(values[row]);
+            return operator == Ops.IN ? in : in.negate();
+        }
+        Long first = toLong(constants.get(0));
+        if (first == null) {
+            return null;
+        }
+        long value = first;
+        if (operator == Ops.EQ) {
+            return row -> !nulls.get(row) && values[row] == value;
+        } else if (operator == Ops.NE) {
+            return row -> nulls.get(row) || values[row] != value;
+        } else if (operator == Ops.LT) {
+            return row -> !nulls.get(row) && values[row] < value;
+        } else if (operator == Ops.GT) {
+            return row -> !nulls.get(row) && values[row] > value;
+        } else if (operator == Ops.LOE) {
+            return row -> !nulls.get(row) && values[row] <= value;
+        } else if (operator == Ops.GOE) {
+            return row -> !nulls.get(row) && values[row] >= value;
+        } else if (operator == Ops.BETWEEN && constants.size() == 2 && toLong(constants.get(1)) != null) {
+            long to = toLong(constants.get(1));
+            return row -> !nulls.get(row) && values[row] >= value && values[row] <= to;
+        }
+        return null;
+    }
+
+    private static IntPredicate compileString(DictionaryColumn column, Operator operator, Object constant) {
+        boolean[] matching = new boolean[column.dictionary.length];
+        boolean matchingNull;
+        if (operator == Ops.IN || operator == Ops.NOT_IN) {
+            if (!(constant instanceof Collection)) {
+                return null;
+            }
+            Collection<?> values = (Collection<?>) constant;
+            for (int code = 0; code < matching.length; code++) {
+                matching[code] = values.contains(column.dictionary[code]) == (operator == Ops.IN);
+            }
+            matchingNull = operator == Ops.NOT_IN;
+        } else {
+            if (!(constant instanceof String)) {
+                return null;
+            }
+            String value = (String) constant;
+            Pattern pattern = pattern(operator, value);
+            if (operator != Ops.EQ && operator != Ops.NE && pattern == null) {
+                return null;
+            }
+            for (int code = 0; code < matching.length; code++) {
+                String entry = column.dictionary[code];
+                matching[code] = pattern != null ? pattern.matcher(entry).find()
+                        : entry.equals(value) == (operator == Ops.EQ);
+            }
+            matchingNull = operator == Ops.NE;
+        }
+        int[] codes = column.codes;
+        return row -> codes[row] < 0 ? matchingNull : matching[codes[row]];
+    }
+
+    /**
+     * The regex sent to mongo by the queryDSL serializer for the string operators
+     */
+    private static Pattern pattern(Operator operator, String value) {
+        String quoted = Pattern.quote(value);
+        int caseInsensitive = Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE;
+        if (operator == Ops.STARTS_WITH) {
+            return Pattern.compile("^" + quoted);
+        } else if (operator == Ops.STARTS_WITH_IC) {
+            return Pattern.compile("^" + quoted, caseInsensitive);
+        } else if (operator == Ops.ENDS_WITH) {
+            return Pattern.compile(quoted + "$");
+        } else if (operator == Ops.ENDS_WITH_IC) {
+            return Pattern.compile(quoted + "$", caseInsensitive);
+        } else if (operator == Ops.EQ_IGNORE_CASE) {
+            return Pattern.compile("^" + quoted + "$", caseInsensitive);
+        } else if (operator == Ops.STRING_CONTAINS) {
+            return Pattern.compile(".*" + quoted + ".*");
+        } else if (operator == Ops.STRING_CONTAINS_IC) {
+            return Pattern.compile(".*" + quoted + ".*", caseInsensitive);
+        }
+        return null;
+    }
+
+    private static Long toLong(Object constant) {
+        if (constant instanceof Integer || constant instanceof Long || constant instanceof Short || constant instanceof Byte) {
+            return ((Number) constant).longValue();
+        }
+        return null;
+    }
+
+    /**
+     * Test all the rows, the chunks are scanned in parallel when there are several
+     */
+    static BitSet scan(IntPredicate test, int size) {
+        long[] words = new long[(size + 63) >>> 6];
+        int chunks = (size + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        IntStream stream = IntStream.range(0, chunks);
+        (chunks > 1 ? stream.parallel() : stream).forEach(chunk -> {
+            int end = Math.min(size, (chunk + 1) * CHUNK_SIZE);
+            for (int row = chunk * CHUNK_SIZE; row < end; row++) {
+                if (test.test(row)) {
+                    words[row >>> 6] |= 1L << row;
+                }
+            }
+        });
+        return BitSet.valueOf(words);
+    }
+}
@@ -0,0 +1,22 @@
+package com.ctl.springmongoquerydsl.utils;
+
+import com.querydsl.core.types.Path;
+
+/**
+ * Utility class to work on queryDSL paths
+ */
+public final class MyPathUtils {
+    private MyPathUtils() {
+    }
+
+    /**
+     * Get the property path of a queryDSL path, without its root variable (ex : family for person.family)
+     */
+    public static String toPropertyPath(Path<?> path) {
+        Path<?> root = path.getRoot();
+        if (root == null || path.equals(root)) {
+            return path.toString();
+        }
+        return path.toString().substring(root.toString().length() + 1);
+    }
+}
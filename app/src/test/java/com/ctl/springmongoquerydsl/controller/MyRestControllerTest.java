@@ -0,0 +1,369 @@
+package com.ctl.springmongoquerydsl.controller;
+
+import com.ctl.springmongoquerydsl.dao.PersonRepository;
+import com.ctl.springmongoquerydsl.model.Person;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.Arrays;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+public class MyRestControllerTest {
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    protected MockMvc mvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Before
+    public void setUp() {
+        personRepository.deleteAll();
+    }
+
+    @Test
+    public void testFind() throws Exception {
+        personRepository.insert(Arrays.asList(
+                Person.builder().name("Stan").family("Marsh").build(),
+                Person.builder().name("Randy").family("Marsh").build(),
+                Person.builder().name("Sharon").family("Marsh").build(),
+                Person.builder().name("Eric").family("Cartman").build()
+        ));
+
+        mvc.perform(get("/rest/all")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(4)));
+
+        final String jsonPredicate = "{\"$and\":[{\"person.family\":{\"$containsIc\": \"Marsh\"}}, {\"person.name\" : {\"$containsIc\": \"Stan\"}}]}";
+
+        mvc.perform(post("/rest/find")
+                .content(jsonPredicate)
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$.[0].name", is("Stan")))
+                .andExpect(jsonPath("$.[0].family", is("Marsh")))
+        ;
+    }
+
+    @Test
+    public void testJsonPredicateErrors() throws Exception {
+        mvc.perform(post("/rest/count")
+                .content("{\"person.nickname\": \"Stan\"}")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error", containsString("nickname")));
+    }
+
+    @Test
+    public void testFindRaw() throws Exception {
+        personRepository.insert(Arrays.asList(
+                Person.builder().name("Stan").family("Marsh").age(10).build(),
+                Person.builder().name("Eric").family("Cartman").age(10).build()
+        ));
+        String id = find("Stan").getId();
+
+        MvcResult result = mvc.perform(post("/rest/find")
+                .param("raw", "true")
+                .content("{\"person.family\": \"Marsh\"}")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$.[0].id", is(id)))
+                .andExpect(jsonPath("$.[0].name", is("Stan")))
+                .andExpect(jsonPath("$.[0].age", is(10)))
+                .andExpect(jsonPath("$.[0]._class").doesNotExist());
+    }
+
+    @Test
+    public void testStream() throws Exception {
+        personRepository.insert(Arrays.asList(
+                Person.builder().name("Stan").family("Marsh").build(),
+                Person.builder().name("Randy").family("Marsh").build(),
+                Person.builder().name("Eric").family("Cartman").build()
+        ));
+
+        MvcResult result = mvc.perform(post("/rest/find/stream")
+                .content("{\"person.family\": \"Marsh\"}")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$.[0].family", is("Marsh")));
+    }
+
+    @Test
+    public void testFindPartitioned() throws Exception {
+        personRepository.insert(Arrays.asList(
+                Person.builder().name("Stan").family("Marsh").age(10).build(),
+                Person.builder().name("Randy").family("Marsh").age(45).build(),
+                Person.builder().name("Eric").family("Cartman").age(10).build()
+        ));
+
+        MvcResult result = mvc.perform(post("/rest/find/partitioned")
+                .content("{\"predicate\": {\"person.family\": \"Marsh\"}, \"orderBy\": {\"person.age\": \"DESC\"}, \"limit\": 5}")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(MyRestController.FAILED_PARTITIONS_HEADER))
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$.[0].name", is("Randy")));
+    }
+
+    @Test
+    public void testBulkWrites() throws Exception {
+        mvc.perform(post("/rest/bulk/insert")
+                .content("[{\"name\": \"Stan\", \"family\": \"Marsh\", \"age\": 10}, {\"name\": \"Eric\", \"family\": \"Cartman\", \"age\": 10}]")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.received", is(2)))
+                .andExpect(jsonPath("$.inserted", is(2)));
+
+        mvc.perform(post("/rest/bulk/update")
+                .content("[{\"predicate\": {\"person.family\": \"Marsh\"}, \"set\": {\"person.age\": \"11\"}}]")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.matched", is(1)))
+                .andExpect(jsonPath("$.modified", is(1)));
+
+        assertEquals(11, find("Stan").getAge());
+
+        String id = find("Eric").getId();
+        mvc.perform(post("/rest/bulk/upsert")
+                .param("ordered", "false")
+                .content("[{\"id\": \"" + id + "\", \"name\": \"Kyle\", \"family\": \"Broflovski\", \"age\": 10}, {\"name\": \"Kenny\"}]")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.inserted", is(1)))
+                .andExpect(jsonPath("$.matched", is(1)));
+
+        assertEquals(3, personRepository.count());
+        assertEquals("Kyle", personRepository.findById(id).get().getName());
+
+        // the upsert replaces the document : the omitted family is cleared
+        mvc.perform(post("/rest/bulk/upsert")
+                .content("[{\"id\": \"" + id + "\", \"name\": \"Kyle\", \"age\": 11}]")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.matched", is(1)));
+        Person kyle = personRepository.findById(id).get();
+        assertEquals(11, kyle.getAge());
+        assertNull(kyle.getFamily());
+
+        // the elements read before an invalid element or a malformed body are written and reported
+        mvc.perform(post("/rest/bulk/insert")
+                .content("[{\"name\": \"Butters\"}, {\"name\": \"Wendy\", \"age\": \"ten\"}, {\"name\": \"Bebe\"}]")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.received", is(2)))
+                .andExpect(jsonPath("$.inserted", is(1)))
+                .andExpect(jsonPath("$.errors", hasSize(1)))
+                .andExpect(jsonPath("$.errors[0].index", is(1)));
+        mvc.perform(post("/rest/bulk/insert")
+                .content("[{\"name\": \"Token\"}, {\"name\": ")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.inserted", is(1)))
+                .andExpect(jsonPath("$.errors[0].index", is(1)));
+        assertEquals(5, personRepository.count());
+    }
+
+    private Person find(String name) {
+        for (Person person : personRepository.findAll()) {
+            if (name.equals(person.getName())) {
+                return person;
+            }
+        }
+        throw new AssertionError("No person named " + name);
+    }
+
+    @Test
+    public void testFindReactive() throws Exception {
+        personRepository.insert(Arrays.asList(
+                Person.builder().name("Stan").family("Marsh").build(),
+                Person.builder().name("Eric").family("Cartman").build()
+        ));
+
+        MvcResult result = mvc.perform(post("/rest/find/reactive")
+                .content("{\"person.family\": \"Marsh\"}")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$.[0].name", is("Stan")));
+    }
+
+    @Test
+    public void testQueryPages() throws Exception {
+        personRepository.insert(Arrays.asList(
+                Person.builder().name("Stan").family("Marsh").build(),
+                Person.builder().name("Randy").family("Marsh").build(),
+                Person.builder().name("Sharon").family("Marsh").build(),
+                Person.builder().name("Eric").family("Cartman").build()
+        ));
+
+        ObjectNode query = (ObjectNode) objectMapper.readTree(
+                "{\"predicate\": {\"person.family\": \"Marsh\"}, \"orderBy\": {\"person.name\": \"ASC\"}, \"limit\": 2}");
+
+        MvcResult firstPage = mvc.perform(post("/rest/query")
+                .content(query.toString())
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(2)))
+                .andExpect(jsonPath("$.content[0].name", is("Randy")))
+                .andExpect(jsonPath("$.content[1].name", is("Sharon")))
+                .andReturn();
+
+        query.set("searchAfter", objectMapper.readTree(firstPage.getResponse().getContentAsString()).get("searchAfter"));
+
+        mvc.perform(post("/rest/query")
+                .content(query.toString())
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.content[0].name", is("Stan")));
+    }
+
+    @Test
+    public void testQueryPagesAfterNullValue() throws Exception {
+        personRepository.insert(Arrays.asList(
+                Person.builder().name("Stan").family("Marsh").build(),
+                Person.builder().name("Kenny").build(),
+                Person.builder().name("Eric").family("Cartman").build()
+        ));
+
+        ObjectNode query = (ObjectNode) objectMapper.readTree("{\"orderBy\": {\"person.family\": \"ASC\"}, \"limit\": 1}");
+
+        MvcResult firstPage = mvc.perform(post("/rest/query")
+                .content(query.toString())
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].name", is("Kenny")))
+                .andReturn();
+
+        // the missing family is sorted first, the next page starts with the families
+        query.set("searchAfter", objectMapper.readTree(firstPage.getResponse().getContentAsString()).get("searchAfter"));
+        query.put("limit", 5);
+
+        mvc.perform(post("/rest/query")
+                .content(query.toString())
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(2)))
+                .andExpect(jsonPath("$.content[0].name", is("Eric")))
+                .andExpect(jsonPath("$.content[1].name", is("Stan")));
+    }
+
+    @Test
+    public void testQueryProjection() throws Exception {
+        personRepository.insert(Person.builder().name("Stan").family("Marsh").age(10).build());
+
+        mvc.perform(post("/rest/query")
+                .content("{\"predicate\": {\"person.name\": \"Stan\"}, \"projection\": {\"person.age\": 0, \"person.id\": 0}}")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.content[0].name", is("Stan")))
+                .andExpect(jsonPath("$.content[0].family", is("Marsh")))
+                .andExpect(jsonPath("$.content[0].age").doesNotExist())
+                .andExpect(jsonPath("$.content[0].id").doesNotExist());
+    }
+
+    @Test
+    public void testBatch() throws Exception {
+        personRepository.insert(Arrays.asList(
+                Person.builder().name("Stan").family("Marsh").build(),
+                Person.builder().name("Eric").family("Cartman").build()
+        ));
+
+        mvc.perform(post("/rest/batch")
+                .content("{\"marsh\": {\"predicate\": {\"person.family\": \"Marsh\"}}, "
+                        + "\"all\": {}, "
+                        + "\"invalid\": {\"predicate\": {\"person.unknown\": \"Marsh\"}}}")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.marsh.page.content", hasSize(1)))
+                .andExpect(jsonPath("$.all.page.content", hasSize(2)))
+                .andExpect(jsonPath("$.invalid.error").exists())
+                .andExpect(jsonPath("$.invalid.page").doesNotExist());
+    }
+
+    @Test
+    public void testCountExistsAggregate() throws Exception {
+        personRepository.insert(Arrays.asList(
+                Person.builder().name("Stan").family("Marsh").age(10).build(),
+                Person.builder().name("Randy").family("Marsh").age(45).build(),
+                Person.builder().name("Eric").family("Cartman").age(10).build()
+        ));
+
+        mvc.perform(post("/rest/count")
+                .content("{\"person.family\": \"Marsh\"}")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count", is(2)));
+
+        mvc.perform(post("/rest/exists")
+                .content("{\"person.family\": \"Broflovski\"}")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.exists", is(false)));
+
+        mvc.perform(post("/rest/aggregate")
+                .content("{\"predicate\": {\"person.family\": \"Marsh\"}, \"groupBy\": [\"person.family\"], "
+                        + "\"aggregates\": {\"person.age\": [\"min\", \"max\", \"avg\"]}}")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].group['person.family']", is("Marsh")))
+                .andExpect(jsonPath("$[0].count", is(2)))
+                .andExpect(jsonPath("$[0].min['person.age']", is(10)))
+                .andExpect(jsonPath("$[0].max['person.age']", is(45)))
+                .andExpect(jsonPath("$[0].avg['person.age']", is(27.5)));
+    }
+}
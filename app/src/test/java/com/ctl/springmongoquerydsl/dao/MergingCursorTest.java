@@ -0,0 +1,94 @@
+package com.ctl.springmongoquerydsl.dao;
+
+import com.ctl.springmongoquerydsl.model.Person;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.dsl.PathBuilder;
+import org.junit.Test;
+import org.springframework.data.util.CloseableIterator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class MergingCursorTest {
+
+    private static final PathBuilder<Person> PERSON = new PathBuilder<>(Person.class, "person");
+
+    private final AtomicInteger closed = new AtomicInteger();
+
+    private CloseableIterator<Person> cursor(Person... persons) {
+        Iterator<Person> iterator = Arrays.asList(persons).iterator();
+        return new CloseableIterator<Person>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public Person next() {
+                return iterator.next();
+            }
+
+            @Override
+            public void close() {
+                closed.incrementAndGet();
+            }
+        };
+    }
+
+    private static Person person(String name, int age) {
+        return Person.builder().id(name).name(name).age(age).build();
+    }
+
+    @Test
+    public void testMergedByOrderBysUntilLimit() {
+        List<OrderSpecifier<?>> orderBys = Arrays.asList(
+                PERSON.getNumber("age", Integer.class).desc(),
+                PERSON.getString("name").asc());
+        List<CloseableIterator<Person>> cursors = Arrays.asList(
+                cursor(person("Randy", 45), person("Kyle", 10), person("Stan", 10)),
+                cursor(),
+                cursor(person("Sharon", 44), person("Eric", 10), person("Kenny", 9)));
+
+        List<String> names = new ArrayList<>();
+        try (MergingCursor<Person> merged = new MergingCursor<>(cursors, orderBys, 5)) {
+            merged.forEachRemaining(person -> names.add(person.getName()));
+        }
+
+        assertEquals(Arrays.asList("Randy", "Sharon", "Eric", "Kyle", "Stan"), names);
+        assertEquals(3, closed.get());
+    }
+
+    @Test
+    public void testCursorsClosedWhenFirstReadFails() {
+        CloseableIterator<Person> failing = new CloseableIterator<Person>() {
+            @Override
+            public boolean hasNext() {
+                throw new IllegalStateException("partition down");
+            }
+
+            @Override
+            public Person next() {
+                throw new IllegalStateException("partition down");
+            }
+
+            @Override
+            public void close() {
+                closed.incrementAndGet();
+            }
+        };
+        List<CloseableIterator<Person>> cursors = Arrays.asList(cursor(person("Stan", 10)), failing, cursor(person("Kyle", 10)));
+
+        try {
+            new MergingCursor<>(cursors, Arrays.asList(PERSON.getString("name").asc()), 5);
+            fail("the failed read should be thrown");
+        } catch (IllegalStateException e) {
+            assertEquals(3, closed.get());
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.ctl.springmongoquerydsl.dao;
+
+import com.ctl.springmongoquerydsl.model.Person;
+import com.mongodb.DBRef;
+import com.querydsl.core.types.dsl.PathBuilder;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.Test;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import static org.junit.Assert.assertEquals;
+
+public class MongoPredicateSerializerTest {
+
+    /**
+     * Entity with a DBRef property
+     */
+    @org.springframework.data.mongodb.core.mapping.Document
+    static class Club {
+
+        private String name;
+
+        @org.springframework.data.mongodb.core.mapping.DBRef
+        private Person president;
+    }
+
+    private final MongoPredicateSerializer serializer = new MongoPredicateSerializer(new MongoMappingContext());
+
+    private final PathBuilder<Club> club = new PathBuilder<>(Club.class, "club");
+
+    @Test
+    public void testReferencesAreWrittenAsDBRef() {
+        String id = "5ad9d4f3b4a4d51a0c6b7d7f";
+        DBRef president = new DBRef("person", new ObjectId(id));
+
+        assertEquals(new Document("president", president),
+                serializer.toDocument(club.get("president", Person.class).eq(Person.builder().id(id).name("Randy").build())));
+        assertEquals(new Document("president", president),
+                serializer.toDocument(club.get("president", Person.class).getString("id").eq(id)));
+        assertEquals(new Document("name", "South Park"), serializer.toDocument(club.getString("name").eq("South Park")));
+    }
+}
@@ -0,0 +1,47 @@
+package com.ctl.springmongoquerydsl.dao;
+
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.Expressions;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+public class QueryResultCacheTest {
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private List<String> load(Predicate predicate) {
+        loads.incrementAndGet();
+        return Arrays.asList("Stan", "Kyle");
+    }
+
+    @Test
+    public void testCachedUntilInvalidated() {
+        QueryResultCache<String> cache = new QueryResultCache<>(10, 1000, 60, String::length);
+        Predicate predicate = Expressions.stringPath("name").eq("Stan");
+
+        assertEquals(Arrays.asList("Stan", "Kyle"), cache.get(predicate, this::load));
+        assertEquals(Arrays.asList("Stan", "Kyle"), cache.get(Expressions.stringPath("name").eq("Stan"), this::load));
+        assertEquals(1, loads.get());
+        assertEquals(8, cache.getEstimatedBytes());
+        assertEquals(0.5, cache.getStats().hitRate(), 0.001);
+
+        cache.invalidateAll();
+        assertEquals(0, cache.getEstimatedBytes());
+        cache.get(predicate, this::load);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void testBoundedByEntries() {
+        QueryResultCache<String> cache = new QueryResultCache<>(2, 1000, 60, String::length);
+        for (int i = 0; i < 10; i++) {
+            cache.get(Expressions.numberPath(Integer.class, "age").eq(i), this::load);
+        }
+        assertEquals(2, cache.size());
+    }
+}
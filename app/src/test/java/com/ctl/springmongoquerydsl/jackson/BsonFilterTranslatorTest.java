@@ -0,0 +1,95 @@
+package com.ctl.springmongoquerydsl.jackson;
+
+import com.ctl.springmongoquerydsl.dao.PersonRepository;
+import com.ctl.springmongoquerydsl.model.Person;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.bson.Document;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class BsonFilterTranslatorTest {
+
+    private static final String[] TRANSLATED = {
+            "{\"person.name\": \"Stan\"}",
+            "{\"person.age\": {\"$gt\": \"9\"}, \"person.family\": {\"$in\": [\"Marsh\", \"Cartman\"]}}",
+            "{\"person.age\": {\"$nin\": [8, \"9\", 10]}}",
+            "{\"person.family\": {\"$ne\": \"Marsh\"}, \"person.age\": {\"$lte\": 10}}",
+            "{\"$or\": [{\"person.name\": {\"$eq\": \"Stan\"}}, {\"$and\": [{\"person.age\": {\"$gte\": 40}}, {\"person.family\": \"Marsh\"}]}]}"
+    };
+
+    private static final String[] NOT_TRANSLATED = {
+            "{\"person.family\": {\"$containsIc\": \"marsh\"}}",
+            "{\"person.age\": {\"$between\": [8, 10]}}",
+            "{\"$or\": [{\"person.name\": \"Stan\"}, {\"person.name\": {\"$start\": \"K\"}}]}",
+            "{\"$and\": []}"
+    };
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private DefaultQueryDslDeserializer<Person> deserializer;
+
+    @Autowired
+    private BsonFilterTranslator translator;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Before
+    public void setUp() {
+        personRepository.deleteAll();
+        personRepository.insert(Arrays.asList(
+                Person.builder().name("Stan").family("Marsh").age(10).build(),
+                Person.builder().name("Randy").family("Marsh").age(45).build(),
+                Person.builder().name("Kyle").family("Broflovski").age(10).build(),
+                Person.builder().name("Eric").family("Cartman").age(9).build()
+        ));
+    }
+
+    @Test
+    public void testSameResultsAsQueryDsl() throws Exception {
+        for (String json : TRANSLATED) {
+            JsonNode node = objectMapper.readTree(json);
+            Optional<Document> filter = translator.translate(node, Person.class);
+            assertTrue(json, filter.isPresent());
+
+            List<Person> expected = new ArrayList<>();
+            personRepository.findAll(deserializer.deserializePredicate(json, Person.class)).forEach(expected::add);
+            assertEquals(json, names(expected), names(personRepository.find(filter.get())));
+        }
+    }
+
+    @Test
+    public void testOtherOperatorsAreNotTranslated() throws Exception {
+        for (String json : NOT_TRANSLATED) {
+            assertFalse(json, translator.translate(objectMapper.readTree(json), Person.class).isPresent());
+        }
+    }
+
+    @Test(expected = DefaultQueryDslDeserializer.DSLJsonDeserializerException.class)
+    public void testUnknownPathIsRejected() throws Exception {
+        translator.translate(objectMapper.readTree("{\"person.nickname\": \"Stan\"}"), Person.class);
+    }
+
+    private static List<String> names(List<Person> persons) {
+        return persons.stream().map(Person::getName).sorted().collect(Collectors.toList());
+    }
+}
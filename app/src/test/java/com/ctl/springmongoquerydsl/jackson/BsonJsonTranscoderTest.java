@@ -0,0 +1,82 @@
+package com.ctl.springmongoquerydsl.jackson;
+
+import com.ctl.springmongoquerydsl.model.Person;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyNamingStrategy;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DocumentCodec;
+import org.bson.types.ObjectId;
+import org.junit.Test;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.io.StringWriter;
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+
+public class BsonJsonTranscoderTest {
+
+    /**
+     * Entity with renamed, ignored and embedded properties
+     */
+    @org.springframework.data.mongodb.core.mapping.Document
+    @Getter
+    @AllArgsConstructor
+    static class Member {
+
+        @Id
+        private String id;
+
+        @Field("n")
+        private String fullName;
+
+        @JsonProperty("years")
+        private int age;
+
+        @JsonIgnore
+        private String password;
+
+        private Date joinedAt;
+
+        private Person friend;
+    }
+
+    @Test
+    public void testRawIsWrittenLikeTheMappedEntity() throws Exception {
+        ObjectMapper mapper = new ObjectMapper()
+                .setPropertyNamingStrategy(PropertyNamingStrategy.SNAKE_CASE)
+                .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        ObjectId id = new ObjectId();
+        ObjectId friendId = new ObjectId();
+        Document document = new Document("_id", id)
+                .append("n", "Stan Marsh")
+                .append("age", 10)
+                .append("password", "secret")
+                .append("joinedAt", new Date(1500))
+                .append("friend", new Document("_id", friendId).append("name", "Kyle").append("age", 10).append("family", null))
+                .append("_class", Member.class.getName())
+                .append("nickname", "unmapped");
+
+        Member member = new Member(id.toHexString(), "Stan Marsh", 10, "secret", new Date(1500),
+                Person.builder().id(friendId.toHexString()).name("Kyle").age(10).build());
+        String mapped = mapper.writeValueAsString(member);
+
+        BsonJsonTranscoder transcoder = new BsonJsonTranscoder(new MongoMappingContext(), mapper, Member.class);
+        StringWriter raw = new StringWriter();
+        try (JsonGenerator generator = mapper.getFactory().createGenerator(raw)) {
+            transcoder.write(new RawBsonDocument(document, new DocumentCodec()), generator);
+        }
+
+        assertEquals(mapper.readTree(mapped), mapper.readTree(raw.toString()));
+        assertEquals("Stan Marsh", mapper.readTree(raw.toString()).get("full_name").asText());
+    }
+}
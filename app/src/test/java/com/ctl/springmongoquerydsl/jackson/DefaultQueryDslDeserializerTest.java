@@ -0,0 +1,166 @@
+package com.ctl.springmongoquerydsl.jackson;
+
+import com.ctl.springmongoquerydsl.model.Person;
+import com.ctl.springmongoquerydsl.query.InvalidQueryException;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class DefaultQueryDslDeserializerTest {
+
+    private static final String[] PREDICATES = {
+            "{\"person.name\": \"Stan\"}",
+            "{\"person.age\": {\"$gt\": 10}, \"person.family\": {\"$in\": [\"Marsh\", \"Cartman\"]}}",
+            "{\"person.age\": {\"$between\": [8, 10]}}",
+            "{\"person.age\": {\"$nin\": [8, \"9\", 10]}, \"person.id\": 42}",
+            "{\"$and\":[{\"person.family\":{\"$containsIc\": \"Marsh\"}}, {\"$or\": [{\"person.name\" : \"Stan\"}, {\"person.age\": {\"$lte\": 40}}]}]}"
+    };
+
+    private static final String[] TEAM_PREDICATES = {
+            "{\"team.members\": \"Stan\"}",
+            "{\"team.scores\": {\"$gt\": \"3\"}}",
+            "{\"team.codes\": {\"$in\": [1, \"2\"]}}",
+            "{\"team.captain.age\": {\"$gte\": 10}, \"team.name\": \"South Park\"}"
+    };
+
+    @SuppressWarnings("unchecked")
+    private DefaultQueryDslDeserializer<Person> newDeserializer() {
+        return new DefaultQueryDslDeserializer(Person.class);
+    }
+
+    @Test
+    public void testTemplateCacheBindsSameExpression() {
+        DefaultQueryDslDeserializer<Person> plain = newDeserializer();
+        DefaultQueryDslDeserializer<Person> cached = newDeserializer();
+        cached.setTemplateCache(new PredicateTemplateCache(10));
+
+        for (String json : PREDICATES) {
+            BooleanExpression expected = plain.deserializePredicate(json, Person.class);
+            // first call compiles the template, second one binds it
+            assertEquals(expected, cached.deserializePredicate(json, Person.class));
+            assertEquals(expected, cached.deserializePredicate(json, Person.class));
+        }
+        assertEquals(PREDICATES.length, cached.getTemplateCache().getStats().missCount());
+        assertEquals(PREDICATES.length, cached.getTemplateCache().getStats().hitCount());
+    }
+
+    @Test
+    public void testStreamingModeBuildsSameExpression() {
+        DefaultQueryDslDeserializer<Person> tree = newDeserializer();
+        DefaultQueryDslDeserializer<Person> streaming = newDeserializer();
+        streaming.setParserMode(DefaultQueryDslDeserializer.ParserMode.STREAMING);
+
+        for (String json : PREDICATES) {
+            assertEquals(tree.deserializePredicate(json, Person.class), streaming.deserializePredicate(json, Person.class));
+        }
+    }
+
+    @Test
+    public void testTemplateCacheIgnoresLiterals() {
+        DefaultQueryDslDeserializer<Person> cached = newDeserializer();
+        cached.setTemplateCache(new PredicateTemplateCache(10));
+
+        BooleanExpression stan = cached.deserializePredicate("{\"person.name\": {\"$in\": [\"Stan\"]}}", Person.class);
+        BooleanExpression kyle = cached.deserializePredicate("{\"person.name\": {\"$in\": [\"Kyle\", \"Kenny\"]}}", Person.class);
+
+        assertNotEquals(stan, kyle);
+        assertEquals(1, cached.getTemplateCache().size());
+        assertEquals(1, cached.getTemplateCache().getStats().hitCount());
+    }
+
+    @Test
+    public void testPathsAreResolvedOnce() {
+        DefaultQueryDslDeserializer<Person> deserializer = newDeserializer();
+        deserializer.getPathRegistry().register(Person.class);
+        long registered = deserializer.getPathRegistry().size();
+
+        deserializer.deserializePredicate(PREDICATES[3], Person.class);
+
+        assertEquals(registered, deserializer.getPathRegistry().size());
+        assertEquals(0, deserializer.getPathRegistry().getStats().evictionCount());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testGeneratedPathTableBuildsSameExpression() {
+        DefaultQueryDslDeserializer<Person> reflected = newDeserializer();
+        DefaultQueryDslDeserializer<Person> generated = newDeserializer();
+        assertTrue(generated.getPathRegistry().registerGeneratedTables() > 0);
+        assertTrue(generated.getPathRegistry().hasTable(Person.class));
+
+        for (String json : PREDICATES) {
+            assertEquals(reflected.deserializePredicate(json, Person.class), generated.deserializePredicate(json, Person.class));
+        }
+        // all the paths come from the table, none is resolved by reflection
+        assertEquals(0, generated.getPathRegistry().getStats().requestCount());
+
+        // the collection, map and array fields have the type of their elements
+        DefaultQueryDslDeserializer<Team> reflectedTeam = new DefaultQueryDslDeserializer(Team.class);
+        DefaultQueryDslDeserializer<Team> generatedTeam = new DefaultQueryDslDeserializer(Team.class);
+        generatedTeam.getPathRegistry().registerGeneratedTables();
+        assertTrue(generatedTeam.getPathRegistry().hasTable(Team.class));
+        for (String json : TEAM_PREDICATES) {
+            assertEquals(reflectedTeam.deserializePredicate(json, Team.class), generatedTeam.deserializePredicate(json, Team.class));
+        }
+        assertEquals(0, generatedTeam.getPathRegistry().getStats().requestCount());
+        for (String path : new String[]{"team.members", "team.scores", "team.codes", "team.captain.age"}) {
+            assertEquals(reflectedTeam.getPathRegistry().resolve(Team.class, path).getType(),
+                    generatedTeam.getPathRegistry().resolve(Team.class, path).getType());
+        }
+        assertEquals(String.class, generatedTeam.getPathRegistry().resolve(Team.class, "team.members").getType());
+    }
+
+    @Test(expected = DefaultQueryDslDeserializer.DSLJsonDeserializerException.class)
+    public void testUnknownPathIsRejected() {
+        newDeserializer().deserializePredicate("{\"person.nickname\": \"Stan\"}", Person.class);
+    }
+
+    @Test
+    public void testComplexityLimitsRejectLargePredicates() {
+        String deep = "{\"$or\": [{\"$and\": [{\"$or\": [{\"person.name\": \"Stan\"}]}]}]}";
+        String largeIn = "{\"person.age\": {\"$in\": [1, 2, 3, 4]}}";
+        String regex = "{\"person.name\": {\"$like\": \"S%\"}, \"person.family\": {\"$containsIc\": \"mar\"}}";
+
+        for (DefaultQueryDslDeserializer.ParserMode mode : DefaultQueryDslDeserializer.ParserMode.values()) {
+            DefaultQueryDslDeserializer<Person> deserializer = newDeserializer();
+            deserializer.setParserMode(mode);
+            QueryComplexityLimits limits = new QueryComplexityLimits(3, 10, 3, 1);
+            limits.setIndexedPaths(path -> path.getMetadata().getName().equals("name"));
+            deserializer.setComplexityLimits(limits);
+
+            assertRejected(deserializer, deep);
+            assertRejected(deserializer, largeIn);
+            // a single regex on an unindexed path is accepted
+            deserializer.deserializePredicate(regex, Person.class);
+            assertRejected(deserializer, "{\"person.family\": {\"$like\": \"M%\"}, \"person.age\": {\"$in\": [1, 2]},"
+                    + " \"$or\": [{\"person.family\": {\"$start\": \"C\"}}]}");
+        }
+    }
+
+    @Test
+    public void testComplexityLimitsStopTheTreeWhileItIsRead() {
+        DefaultQueryDslDeserializer<Person> deserializer = newDeserializer();
+        deserializer.setComplexityLimits(new QueryComplexityLimits(3, 10, 3, 1));
+
+        // truncated json : only a parser stopping before the end rejects it on the limits
+        StringBuilder largeIn = new StringBuilder("{\"person.age\": {\"$in\": [0");
+        for (int i = 1; i < 1000; i++) {
+            largeIn.append(", ").append(i);
+        }
+        assertRejected(deserializer, largeIn.toString());
+        assertRejected(deserializer, "{\"$or\": [{\"$or\": [{\"$or\": [{\"$or\": [{\"$or\": [{\"$or\": [");
+    }
+
+    private static void assertRejected(DefaultQueryDslDeserializer<Person> deserializer, String json) {
+        try {
+            deserializer.deserializePredicate(json, Person.class);
+            fail("The predicate should be over the limits : " + json);
+        } catch (DefaultQueryDslDeserializer.DSLJsonDeserializerException e) {
+            assertTrue(e.getCause() instanceof InvalidQueryException);
+        }
+    }
+}
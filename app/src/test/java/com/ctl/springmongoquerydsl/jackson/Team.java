@@ -0,0 +1,24 @@
+package com.ctl.springmongoquerydsl.jackson;
+
+import com.ctl.springmongoquerydsl.model.Person;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Entity of the path table tests, with collection, map and array fields
+ */
+@Document
+public class Team {
+
+    private String name;
+
+    private List<String> members;
+
+    private Map<String, Integer> scores;
+
+    private int[] codes;
+
+    private Person captain;
+}
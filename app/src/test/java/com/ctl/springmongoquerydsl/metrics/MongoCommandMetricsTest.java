@@ -0,0 +1,24 @@
+package com.ctl.springmongoquerydsl.metrics;
+
+import org.bson.BsonDocument;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class MongoCommandMetricsTest {
+
+    private static int shapeOf(String filter) {
+        return MongoCommandMetrics.shapeOf(BsonDocument.parse(filter));
+    }
+
+    @Test
+    public void testShapeIgnoresValues() {
+        assertEquals(shapeOf("{\"family\": \"Marsh\", \"age\": {\"$gt\": 10}}"),
+                shapeOf("{\"family\": \"Cartman\", \"age\": {\"$gt\": 8}}"));
+        assertEquals(shapeOf("{\"name\": {\"$in\": [\"Stan\"]}}"),
+                shapeOf("{\"name\": {\"$in\": [\"Kyle\", \"Kenny\"]}}"));
+        assertNotEquals(shapeOf("{\"family\": \"Marsh\"}"), shapeOf("{\"name\": \"Marsh\"}"));
+        assertNotEquals(shapeOf("{\"age\": {\"$gt\": 10}}"), shapeOf("{\"age\": {\"$lt\": 10}}"));
+    }
+}
@@ -0,0 +1,76 @@
+package com.ctl.springmongoquerydsl.query;
+
+import com.ctl.springmongoquerydsl.jackson.DefaultQueryDslDeserializer;
+import com.ctl.springmongoquerydsl.model.Person;
+import com.querydsl.core.types.Predicate;
+import org.bson.Document;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class IndexPlannerTest {
+
+    @Autowired
+    private MongoOperations mongoOperations;
+
+    @Autowired
+    private MongoMappingContext mappingContext;
+
+    @Autowired
+    private DefaultQueryDslDeserializer<Person> deserializer;
+
+    private Predicate predicate(String json) {
+        return deserializer.deserializePredicate(json, Person.class);
+    }
+
+    @Test
+    public void testIndexedPredicates() {
+        mongoOperations.indexOps(Person.class).ensureIndex(new Index("family", Sort.Direction.ASC));
+        IndexPlanner planner = new IndexPlanner(mongoOperations, mappingContext, Person.class, IndexPlanner.Policy.REJECT);
+
+        assertTrue(planner.isIndexed(predicate("{\"person.family\": \"Marsh\"}")));
+        assertTrue(planner.isIndexed(predicate("{\"person.id\": {\"$in\": [\"5ad9d4f3b4a4d51a0c6b7d7f\"]}}")));
+        assertTrue(planner.isIndexed(predicate("{\"person.family\": \"Marsh\", \"person.name\": {\"$containsIc\": \"st\"}}")));
+        assertFalse(planner.isIndexed(predicate("{\"person.family\": {\"$containsIc\": \"mar\"}}")));
+        assertFalse(planner.isIndexed(predicate("{\"$or\": [{\"person.family\": \"Marsh\"}, {\"person.age\": {\"$gt\": 10}}]}")));
+
+        try {
+            planner.check(predicate("{\"person.age\": {\"$gt\": 10}}"));
+            fail("the unindexed predicate should have been rejected");
+        } catch (InvalidQueryException e) {
+            assertEquals(1, planner.getUnindexedCount());
+        }
+    }
+
+    @Test
+    public void testIndexedFilters() {
+        mongoOperations.indexOps(Person.class).ensureIndex(new Index("family", Sort.Direction.ASC));
+        IndexPlanner planner = new IndexPlanner(mongoOperations, mappingContext, Person.class, IndexPlanner.Policy.REJECT);
+
+        assertTrue(planner.isIndexed(Document.parse("{\"family\": \"Marsh\"}")));
+        assertTrue(planner.isIndexed(Document.parse("{\"family\": {\"$in\": [\"Marsh\"]}, \"age\": {\"$ne\": 10}}")));
+        assertTrue(planner.isIndexed(Document.parse("{\"$and\": [{\"family\": \"Marsh\"}, {\"age\": {\"$gt\": 10}}]}")));
+        assertFalse(planner.isIndexed(Document.parse("{\"family\": {\"$ne\": \"Marsh\"}}")));
+        assertFalse(planner.isIndexed(Document.parse("{\"$or\": [{\"family\": \"Marsh\"}, {\"age\": {\"$gt\": 10}}]}")));
+
+        try {
+            planner.check(Document.parse("{\"age\": {\"$gt\": 10}}"));
+            fail("the unindexed filter should have been rejected");
+        } catch (InvalidQueryException e) {
+            assertEquals(1, planner.getUnindexedCount());
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.ctl.springmongoquerydsl.query;
+
+import com.ctl.springmongoquerydsl.jackson.DefaultQueryDslDeserializer;
+import com.ctl.springmongoquerydsl.jackson.Team;
+import com.ctl.springmongoquerydsl.model.Person;
+import com.querydsl.core.types.Predicate;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PredicateOptimizerTest {
+
+    @SuppressWarnings("unchecked")
+    private final DefaultQueryDslDeserializer<Person> deserializer = new DefaultQueryDslDeserializer(Person.class);
+
+    private Predicate predicate(String json) {
+        return deserializer.deserializePredicate(json, Person.class);
+    }
+
+    @Test
+    public void testFlattenAndRemoveDuplicates() {
+        Predicate optimized = PredicateOptimizer.optimize(predicate(
+                "{\"$and\":[{\"person.name\": \"Stan\"}, {\"$and\": [{\"person.name\": \"Stan\"}, {\"person.family\": \"Marsh\"}]}]}"));
+        assertEquals(predicate("{\"person.name\": \"Stan\", \"person.family\": \"Marsh\"}"), optimized);
+    }
+
+    @Test
+    public void testMergeEqualitiesIntoIn() {
+        Predicate optimized = PredicateOptimizer.optimize(predicate(
+                "{\"$or\":[{\"person.name\": \"Stan\"}, {\"$or\": [{\"person.name\": \"Kyle\"}, {\"person.name\": {\"$in\": [\"Stan\", \"Kenny\"]}}]}]}"));
+        assertEquals(predicate("{\"person.name\": {\"$in\": [\"Stan\", \"Kyle\", \"Kenny\"]}}"), optimized);
+    }
+
+    @Test
+    public void testFoldRanges() {
+        Predicate optimized = PredicateOptimizer.optimize(predicate(
+                "{\"$and\":[{\"person.age\": {\"$gt\": 10}}, {\"person.age\": {\"$lte\": 20}}, {\"person.age\": {\"$gt\": 12}}]}"));
+        assertEquals(predicate("{\"$and\":[{\"person.age\": {\"$gt\": 12}}, {\"person.age\": {\"$lte\": 20}}]}"), optimized);
+
+        optimized = PredicateOptimizer.optimize(predicate(
+                "{\"$and\":[{\"person.age\": {\"$between\": [8, 12]}}, {\"person.age\": {\"$gte\": 10}}]}"));
+        assertEquals(predicate("{\"person.age\": {\"$between\": [10, 12]}}"), optimized);
+    }
+
+    @Test
+    public void testContradictionNeverMatches() {
+        assertTrue(PredicateOptimizer.isNever(PredicateOptimizer.optimize(predicate(
+                "{\"$and\":[{\"person.age\": {\"$gt\": 20}}, {\"person.age\": {\"$lt\": 10}}]}"))));
+        assertTrue(PredicateOptimizer.isNever(PredicateOptimizer.optimize(predicate(
+                "{\"$and\":[{\"person.name\": \"Stan\"}, {\"person.name\": \"Kyle\"}]}"))));
+        assertFalse(PredicateOptimizer.isNever(PredicateOptimizer.optimize(predicate(
+                "{\"$or\":[{\"$and\":[{\"person.name\": \"Stan\"}, {\"person.name\": \"Kyle\"}]}, {\"person.family\": \"Marsh\"}]}"))));
+    }
+
+    @Test
+    public void testRangesOnArraysAreNotFolded() {
+        @SuppressWarnings("unchecked")
+        DefaultQueryDslDeserializer<Team> teamDeserializer = new DefaultQueryDslDeserializer(Team.class);
+        // each bound can be matched by a different element of the array
+        Predicate codes = teamDeserializer.deserializePredicate(
+                "{\"$and\":[{\"team.codes\": {\"$gt\": 5}}, {\"team.codes\": {\"$lt\": 3}}]}", Team.class);
+        assertEquals(codes, PredicateOptimizer.optimize(codes));
+        Predicate members = teamDeserializer.deserializePredicate(
+                "{\"$and\":[{\"team.members\": \"Stan\"}, {\"team.members\": \"Kyle\"}]}", Team.class);
+        assertEquals(members, PredicateOptimizer.optimize(members));
+
+        assertTrue(PredicateOptimizer.isNever(PredicateOptimizer.optimize(teamDeserializer.deserializePredicate(
+                "{\"$and\":[{\"team.captain.age\": {\"$gt\": 5}}, {\"team.captain.age\": {\"$lt\": 3}}]}", Team.class))));
+    }
+}
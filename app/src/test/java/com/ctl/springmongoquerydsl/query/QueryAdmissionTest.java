@@ -0,0 +1,33 @@
+package com.ctl.springmongoquerydsl.query;
+
+import com.ctl.springmongoquerydsl.controller.CursorResponses;
+import com.ctl.springmongoquerydsl.jackson.IndexedPaths;
+import org.junit.Test;
+import org.springframework.data.util.CloseableIterator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class QueryAdmissionTest {
+
+    @Test
+    public void testCursorHoldsItsPermitUntilClosed() {
+        QueryAdmission admission = new QueryAdmission(100, 1, 1, 10, IndexedPaths.ALL);
+        CloseableIterator<String> cursor = admission.admitCursor(null, CursorResponses::emptyCursor);
+        try {
+            admission.admit(null, () -> "second");
+            fail("the cursor should hold the only cheap permit");
+        } catch (QueryRejectedException e) {
+            // expected
+        }
+        cursor.close();
+        cursor.close();
+        assertEquals("second", admission.admit(null, () -> "second"));
+        try (QueryAdmission.Permit permit = admission.acquire(null)) {
+            admission.acquire(null);
+            fail("the cursor should have released its permit once");
+        } catch (QueryRejectedException e) {
+            // expected
+        }
+    }
+}
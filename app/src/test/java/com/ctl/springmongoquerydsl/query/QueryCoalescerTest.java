@@ -0,0 +1,142 @@
+package com.ctl.springmongoquerydsl.query;
+
+import com.ctl.springmongoquerydsl.jackson.DefaultQueryDslDeserializer;
+import com.ctl.springmongoquerydsl.model.Person;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.DateTimePath;
+import com.querydsl.core.types.dsl.Expressions;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class QueryCoalescerTest {
+
+    @SuppressWarnings("unchecked")
+    private final DefaultQueryDslDeserializer<Person> deserializer = new DefaultQueryDslDeserializer(Person.class);
+
+    private Predicate predicate(String json) {
+        return PredicateOptimizer.optimize(deserializer.deserializePredicate(json, Person.class));
+    }
+
+    @Test
+    public void testCanonicalJsonIgnoresOrder() {
+        assertEquals(PredicateCanonicalizer.canonicalJson(predicate("{\"person.name\": \"Stan\", \"person.family\": \"Marsh\"}")),
+                PredicateCanonicalizer.canonicalJson(predicate("{\"person.family\": \"Marsh\", \"person.name\": \"Stan\"}")));
+        assertEquals(PredicateCanonicalizer.canonicalJson(predicate("{\"person.name\": {\"$in\": [\"Stan\", \"Kyle\"]}}")),
+                PredicateCanonicalizer.canonicalJson(predicate("{\"person.name\": {\"$in\": [\"Kyle\", \"Stan\"]}}")));
+        assertEquals("{\"person.age\":{\"$gt\":9}}", PredicateCanonicalizer.canonicalJson(predicate("{\"person.age\": {\"$gt\": 9}}")));
+        assertNotEquals(PredicateCanonicalizer.canonicalJson(predicate("{\"person.name\": \"Stan\"}")),
+                PredicateCanonicalizer.canonicalJson(predicate("{\"person.name\": \"Kyle\"}")));
+        assertEquals("{}", PredicateCanonicalizer.canonicalJson(null));
+    }
+
+    @Test
+    public void testCanonicalJsonKeepsTheMillisecondsOfTheDates() {
+        DateTimePath<Date> birth = Expressions.dateTimePath(Date.class, "person.birth");
+        assertNotEquals(PredicateCanonicalizer.canonicalJson(birth.eq(new Date(1000))),
+                PredicateCanonicalizer.canonicalJson(birth.eq(new Date(1500))));
+        assertEquals("{\"person.birth\":{\"$eq\":{\"$date\":\"1970-01-01T00:00:01.500Z\"}}}",
+                PredicateCanonicalizer.canonicalJson(birth.eq(new Date(1500))));
+    }
+
+    @Test
+    public void testIdenticalQueriesShareOneExecution() throws Exception {
+        QueryCoalescer<String> coalescer = new QueryCoalescer<>(5000);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger executions = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Predicate stan = predicate("{\"person.name\": \"Stan\", \"person.family\": \"Marsh\"}");
+            Future<List<String>> leader = executor.submit(() -> coalescer.execute(stan, query -> {
+                executions.incrementAndGet();
+                started.countDown();
+                await(release);
+                return Collections.singletonList("Stan");
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            Predicate reordered = predicate("{\"person.family\": \"Marsh\", \"person.name\": \"Stan\"}");
+            List<Future<List<String>>> waiters = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                waiters.add(executor.submit(() -> coalescer.execute(reordered, query -> {
+                    executions.incrementAndGet();
+                    return Collections.singletonList("other");
+                })));
+            }
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (coalescer.getCoalescedCount() < 3) {
+                if (System.nanoTime() - deadline > 0) {
+                    fail("the identical queries did not wait for the running one : " + coalescer.getCoalescedCount());
+                }
+                Thread.sleep(10);
+            }
+            release.countDown();
+
+            List<String> result = leader.get(5, TimeUnit.SECONDS);
+            for (Future<List<String>> waiter : waiters) {
+                assertSame(result, waiter.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, executions.get());
+            assertEquals(1, coalescer.getExecutionCount());
+            assertEquals(0.75, coalescer.getCoalescingRatio(), 0.001);
+            assertEquals(0, coalescer.inFlight());
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testWaiterTimeoutDoesNotCancelTheQuery() throws Exception {
+        QueryCoalescer<String> coalescer = new QueryCoalescer<>(50);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Predicate stan = predicate("{\"person.name\": \"Stan\"}");
+            Future<List<String>> leader = executor.submit(() -> coalescer.execute(stan, query -> {
+                started.countDown();
+                await(release);
+                return Collections.singletonList("Stan");
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            try {
+                coalescer.execute(stan, query -> Collections.emptyList());
+                fail("the waiter should time out");
+            } catch (QueryRejectedException e) {
+                // expected
+            }
+            assertEquals(1, coalescer.getTimeoutCount());
+
+            release.countDown();
+            assertEquals(Collections.singletonList("Stan"), leader.get(5, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.ctl.springmongoquerydsl.snapshot;
+
+import com.ctl.springmongoquerydsl.jackson.DefaultQueryDslDeserializer;
+import com.ctl.springmongoquerydsl.model.Person;
+import com.querydsl.core.types.Predicate;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SnapshotEvaluatorTest {
+
+    private final MongoMappingContext mappingContext = new MongoMappingContext();
+
+    private DefaultQueryDslDeserializer<Person> deserializer;
+
+    private ColumnarSnapshot<Person> snapshot;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        deserializer = new DefaultQueryDslDeserializer(Person.class);
+        snapshot = ColumnarSnapshot.of(Arrays.asList(
+                Person.builder().name("Stan").family("Marsh").age(10).build(),
+                Person.builder().name("Kyle").family("Broflovski").age(10).build(),
+                Person.builder().name("Eric").family("Cartman").age(9).build(),
+                Person.builder().name("Randy").family("Marsh").age(45).build(),
+                Person.builder().name("Kenny").age(9).build()
+        ), mappingContext.getRequiredPersistentEntity(Person.class));
+    }
+
+    @Test
+    public void testEvaluate() {
+        assertEquals(Arrays.asList("Stan"), names("{\"person.name\": \"Stan\"}"));
+        assertEquals(Arrays.asList("Stan", "Randy"), names("{\"person.family\": \"Marsh\"}"));
+        assertEquals(Arrays.asList("Stan", "Kyle", "Randy"), names("{\"person.age\": {\"$gt\": 9}}"));
+        assertEquals(Arrays.asList("Stan", "Kyle"), names("{\"person.age\": {\"$between\": [10, 40]}}"));
+        assertEquals(Arrays.asList("Eric"), names("{\"person.age\": {\"$lte\": 9}, \"person.family\": {\"$in\": [\"Marsh\", \"Cartman\"]}}"));
+        assertEquals(Arrays.asList("Kyle", "Eric", "Kenny"), names("{\"person.family\": {\"$ne\": \"Marsh\"}}"));
+        assertEquals(Arrays.asList("Kyle", "Kenny"), names("{\"person.family\": {\"$nin\": [\"Marsh\", \"Cartman\"]}}"));
+        assertEquals(Arrays.asList("Stan", "Randy"), names("{\"person.family\": {\"$containsIc\": \"ARS\"}}"));
+        assertEquals(Arrays.asList("Kyle", "Kenny"), names("{\"person.name\": {\"$start\": \"K\"}}"));
+        assertEquals(Arrays.asList("Stan", "Eric", "Randy"),
+                names("{\"$or\": [{\"person.family\": \"Marsh\"}, {\"person.name\": \"Eric\"}]}"));
+        assertEquals(Arrays.asList(), names("{\"person.name\": \"Butters\"}"));
+    }
+
+    @Test
+    public void testUnsupportedPredicatesFallBack() {
+        assertFalse(evaluate("{\"person.name\": {\"$like\": \"St%\"}}").isPresent());
+        assertFalse(evaluate("{\"$or\": [{\"person.name\": \"Stan\"}, {\"person.name\": {\"$like\": \"K%\"}}]}").isPresent());
+    }
+
+    @Test
+    public void testScanAcrossChunks() {
+        int size = SnapshotEvaluator.CHUNK_SIZE * 2 + 100;
+        BitSet bitmap = SnapshotEvaluator.scan(row -> row % 3 == 0, size);
+        assertEquals((size + 2) / 3, bitmap.cardinality());
+        for (int row = 0; row < size; row++) {
+            assertEquals(row % 3 == 0, bitmap.get(row));
+        }
+
+        List<Person> persons = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            persons.add(Person.builder().name("p" + i).age(i % 100).build());
+        }
+        ColumnarSnapshot<Person> large = ColumnarSnapshot.of(persons, mappingContext.getRequiredPersistentEntity(Person.class));
+        Optional<List<Person>> result = SnapshotEvaluator.evaluate(
+                deserializer.deserializePredicate("{\"person.age\": 42}", Person.class), large);
+        assertTrue(result.isPresent());
+        assertEquals(persons.stream().filter(p -> p.getAge() == 42).count(), result.get().size());
+    }
+
+    private List<String> names(String json) {
+        Optional<List<Person>> result = evaluate(json);
+        assertTrue(json, result.isPresent());
+        return result.get().stream().map(Person::getName).collect(Collectors.toList());
+    }
+
+    private Optional<List<Person>> evaluate(String json) {
+        Predicate predicate = deserializer.deserializePredicate(json, Person.class);
+        return SnapshotEvaluator.evaluate(predicate, snapshot);
+    }
+}
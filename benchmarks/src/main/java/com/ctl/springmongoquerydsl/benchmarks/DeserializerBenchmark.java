@@ -0,0 +1,142 @@
+package com.ctl.springmongoquerydsl.benchmarks;
+
+import com.ctl.springmongoquerydsl.jackson.DefaultQueryDslDeserializer;
+import com.ctl.springmongoquerydsl.jackson.DefaultQueryDslDeserializer.ParserMode;
+import com.ctl.springmongoquerydsl.jackson.EntityPathRegistry;
+import com.ctl.springmongoquerydsl.jackson.JsonTypeConverter;
+import com.ctl.springmongoquerydsl.jackson.PredicateTemplateCache;
+import com.ctl.springmongoquerydsl.model.Person;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the json to queryDSL deserialization, without mongo
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeserializerBenchmark {
+
+    private static final String SIMPLE_EQUALITY = "{\"person.name\": \"Stan\"}";
+
+    private static final String ORDER_BYS = "{\"person.family\": \"ASC\", \"person.age\": \"DESC\", \"person.name\": \"ASC\"}";
+
+    /**
+     * how the predicates are read : TREE, STREAMING or TEMPLATE_CACHE (tree with the compiled templates)
+     */
+    @Param({"TREE", "STREAMING", "TEMPLATE_CACHE"})
+    public String mode;
+
+    /**
+     * depth of the nested $and / $or predicate
+     */
+    @Param({"8"})
+    public int depth;
+
+    /**
+     * number of values of the $in predicate
+     */
+    @Param({"10000"})
+    public int inSize;
+
+    private DefaultQueryDslDeserializer<Person> deserializer;
+
+    private JsonTypeConverter converter;
+
+    private String nested;
+
+    private String largeIn;
+
+    private JsonNode dateRange;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() throws IOException {
+        deserializer = new DefaultQueryDslDeserializer(Person.class);
+        EntityPathRegistry pathRegistry = new EntityPathRegistry(DefaultQueryDslDeserializer.DEFAULT_PATH_REGISTRY_SIZE);
+        pathRegistry.register(Person.class);
+        deserializer.setPathRegistry(pathRegistry);
+        if ("TEMPLATE_CACHE".equals(mode)) {
+            deserializer.setTemplateCache(new PredicateTemplateCache(500));
+        } else {
+            deserializer.setParserMode(ParserMode.valueOf(mode));
+        }
+        converter = new JsonTypeConverter();
+
+        nested = nested(depth);
+
+        StringBuilder in = new StringBuilder("{\"person.name\": {\"$in\": [");
+        for (int i = 0; i < inSize; i++) {
+            in.append(i == 0 ? "" : ", ").append("\"name-").append(i).append('"');
+        }
+        largeIn = in.append("]}}").toString();
+
+        dateRange = new ObjectMapper().readTree("[\"2018-01-01T00:00:00Z\", 1546300800000]");
+    }
+
+    /**
+     * {"$and": [{"person.age": {"$gt": 1}}, {"$or": [{"person.name": "Stan"}, {"$and": ...}]}]}
+     */
+    private static String nested(int depth) {
+        if (depth == 0) {
+            return "{\"person.family\": {\"$containsIc\": \"marsh\"}}";
+        }
+        String operator = depth % 2 == 0 ? "$and" : "$or";
+        return "{\"" + operator + "\": [{\"person.age\": {\"$gt\": " + depth + "}}, {\"person.name\": \"Stan\"}, "
+                + nested(depth - 1) + "]}";
+    }
+
+    @Benchmark
+    public BooleanExpression simpleEquality() {
+        return deserializer.deserializePredicate(SIMPLE_EQUALITY, Person.class);
+    }
+
+    @Benchmark
+    public BooleanExpression nestedAndOr() {
+        return deserializer.deserializePredicate(nested, Person.class);
+    }
+
+    @Benchmark
+    public BooleanExpression largeIn() {
+        return deserializer.deserializePredicate(largeIn, Person.class);
+    }
+
+    /**
+     * the persons have no date : the range bounds are converted directly, from ISO text and epoch millis
+     */
+    @Benchmark
+    public void dateRange(Blackhole blackhole) {
+        for (JsonNode bound : dateRange) {
+            blackhole.consume(converter.convert(bound, Date.class));
+            blackhole.consume(converter.convert(bound, Instant.class));
+        }
+    }
+
+    @Benchmark
+    public List<OrderSpecifier> orderBys() {
+        return deserializer.deserializeOrderBys(ORDER_BYS, Person.class);
+    }
+}
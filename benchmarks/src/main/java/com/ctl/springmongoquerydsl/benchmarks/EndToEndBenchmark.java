@@ -0,0 +1,101 @@
+package com.ctl.springmongoquerydsl.benchmarks;
+
+import com.ctl.springmongoquerydsl.SpringMongoQuerydslApplication;
+import com.ctl.springmongoquerydsl.dao.PersonRepository;
+import com.ctl.springmongoquerydsl.model.Person;
+import com.ctl.springmongoquerydsl.query.QueryPage;
+import com.ctl.springmongoquerydsl.query.QueryRequest;
+import com.ctl.springmongoquerydsl.service.PersonQueryService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the whole application against the embedded mongo : http, deserialization and the mongo query
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EndToEndBenchmark {
+
+    private static final String[] FAMILIES = {"Marsh", "Cartman", "Broflovski", "McCormick"};
+
+    private static final String FIND = "{\"$and\": [{\"person.family\": \"Marsh\"}, {\"person.age\": {\"$between\": [10, 20]}}]}";
+
+    private static final String QUERY = "{\"predicate\": " + FIND + ", \"orderBy\": {\"person.name\": \"ASC\"}, \"limit\": 50}";
+
+    /**
+     * number of persons in the collection
+     */
+    @Param({"10000"})
+    public int persons;
+
+    private ConfigurableApplicationContext context;
+
+    private RestTemplate restTemplate;
+
+    private String baseUrl;
+
+    private PersonQueryService queryService;
+
+    private QueryRequest queryRequest;
+
+    @Setup
+    public void setUp() throws IOException {
+        context = SpringApplication.run(SpringMongoQuerydslApplication.class, "--server.port=0",
+                "--querydsl.index-planner.policy=IGNORE");
+        PersonRepository personRepository = context.getBean(PersonRepository.class);
+        personRepository.deleteAll();
+        List<Person> batch = new ArrayList<>();
+        for (int i = 0; i < persons; i++) {
+            batch.add(Person.builder().name("name-" + i).family(FAMILIES[i % FAMILIES.length]).age(i % 80).build());
+        }
+        personRepository.insert(batch);
+
+        restTemplate = new RestTemplate();
+        baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/rest";
+        queryService = context.getBean(PersonQueryService.class);
+        queryRequest = context.getBean(ObjectMapper.class).readValue(QUERY, QueryRequest.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public String findOverHttp() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        return restTemplate.postForObject(baseUrl + "/find", new HttpEntity<>(FIND, headers), String.class);
+    }
+
+    @Benchmark
+    public QueryPage<Object> queryService() {
+        return queryService.query(queryRequest);
+    }
+}
@@ -0,0 +1,272 @@
+package com.ctl.springmongoquerydsl.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.WildcardType;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Generate the queryDSL path table of each @Document entity : for Person, the PersonPathTable class next to it
+ * implementing com.ctl.springmongoquerydsl.jackson.EntityPathTable, and its line in META-INF/services.
+ * <p>
+ * The table holds the same paths as EntityPathRegistry.register(Class) : the non static, non transient fields of
+ * the entity and of its super classes, and the fields of the embedded objects up to 3 levels. Their types (the
+ * element type for the collections, maps and arrays) are given to the path builder, so that no field is looked up
+ * by reflection when the table is loaded.
+ */
+@SupportedAnnotationTypes(PathTableProcessor.DOCUMENT)
+public class PathTableProcessor extends AbstractProcessor {
+
+    static final String DOCUMENT = "org.springframework.data.mongodb.core.mapping.Document";
+
+    static final String TABLE_INTERFACE = "com.ctl.springmongoquerydsl.jackson.EntityPathTable";
+
+    /**
+     * maximum depth of the embedded objects, same as EntityPathRegistry
+     */
+    private static final int MAX_DEPTH = 3;
+
+    /**
+     * the generated tables, written in META-INF/services once all the rounds are done
+     */
+    private final List<String> tables = new ArrayList<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() == ElementKind.CLASS) {
+                    generate((TypeElement) element);
+                }
+            }
+        }
+        if (roundEnv.processingOver() && !tables.isEmpty()) {
+            writeServices();
+        }
+        // the other processors (ex : the mongo Q-types) still get the @Document classes
+        return false;
+    }
+
+    private void generate(TypeElement entity) {
+        String packageName = processingEnv.getElementUtils().getPackageOf(entity).getQualifiedName().toString();
+        String entityName = entity.getQualifiedName().toString();
+        String nestedName = packageName.isEmpty() ? entityName : entityName.substring(packageName.length() + 1);
+        String tableName = nestedName.replace('.', '_') + "PathTable";
+        String qualifiedTableName = packageName.isEmpty() ? tableName : packageName + "." + tableName;
+
+        StringBuilder paths = new StringBuilder();
+        String root = decapitalize(entity.getSimpleName().toString());
+        paths.append("        PathBuilder<?> p0 = new PathBuilder<>(").append(entityName).append(".class, \"").append(root).append("\");\n");
+        addPaths(paths, new int[]{0}, "p0", root, entity.asType(), 0);
+
+        StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("import ").append(TABLE_INTERFACE).append(";\n")
+                .append("import com.querydsl.core.types.EntityPath;\n")
+                .append("import com.querydsl.core.types.dsl.PathBuilder;\n\n")
+                .append("import java.util.Collections;\n")
+                .append("import java.util.HashMap;\n")
+                .append("import java.util.Map;\n")
+                .append("import java.util.Set;\n\n")
+                .append("/**\n")
+                .append(" * Paths of {@link ").append(entityName).append("}, generated by ")
+                .append(PathTableProcessor.class.getName()).append(" : do not edit\n")
+                .append(" */\n")
+                .append("public final class ").append(tableName).append(" implements EntityPathTable {\n\n")
+                .append("    private static final Map<String, EntityPath<?>> PATHS;\n\n")
+                .append("    static {\n")
+                .append("        Map<String, EntityPath<?>> paths = new HashMap<>();\n")
+                .append(paths)
+                .append("        PATHS = Collections.unmodifiableMap(paths);\n")
+                .append("    }\n\n")
+                .append("    @Override\n")
+                .append("    public Class<?> getEntityClass() {\n")
+                .append("        return ").append(entityName).append(".class;\n")
+                .append("    }\n\n")
+                .append("    @Override\n")
+                .append("    public EntityPath<?> get(String path) {\n")
+                .append("        return PATHS.get(path);\n")
+                .append("    }\n\n")
+                .append("    @Override\n")
+                .append("    public Set<String> paths() {\n")
+                .append("        return PATHS.keySet();\n")
+                .append("    }\n")
+                .append("}\n");
+
+        try {
+            JavaFileObject file = processingEnv.getFiler().createSourceFile(qualifiedTableName, entity);
+            try (Writer writer = file.openWriter()) {
+                writer.write(source.toString());
+            }
+            tables.add(qualifiedTableName);
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Could not generate the path table of " + entityName + " : " + e.getMessage(), entity);
+        }
+    }
+
+    /**
+     * Add a line per field of the specified type, and recurse on the embedded objects
+     *
+     * @param out      the static block being written
+     * @param counter  the number of path builder variables
+     * @param variable the path builder variable of the type
+     * @param prefix   the string path of the type
+     * @param type     the type
+     * @param depth    the depth of the type
+     */
+    private void addPaths(StringBuilder out, int[] counter, String variable, String prefix, TypeMirror type, int depth) {
+        for (TypeMirror current = type; isClass(current); current = ((TypeElement) asElement(current)).getSuperclass()) {
+            TypeElement element = (TypeElement) asElement(current);
+            if (element.getQualifiedName().contentEquals("java.lang.Object")) {
+                break;
+            }
+            for (VariableElement field : ElementFilter.fieldsIn(element.getEnclosedElements())) {
+                Set<Modifier> modifiers = field.getModifiers();
+                if (modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.TRANSIENT)) {
+                    continue;
+                }
+                String name = field.getSimpleName().toString();
+                String path = prefix + "." + name;
+                TypeMirror fieldType = field.asType();
+                if (depth < MAX_DEPTH && !isSimpleType(fieldType)) {
+                    String child = "p" + (++counter[0]);
+                    out.append("        PathBuilder<?> ").append(child).append(" = ").append(variable)
+                            .append(".get(\"").append(name).append("\", ").append(pathTypeLiteral(fieldType)).append(");\n");
+                    out.append("        paths.put(\"").append(path).append("\", ").append(child).append(");\n");
+                    addPaths(out, counter, child, path, fieldType, depth + 1);
+                } else {
+                    out.append("        paths.put(\"").append(path).append("\", ").append(variable)
+                            .append(".get(\"").append(name).append("\", ").append(pathTypeLiteral(fieldType)).append("));\n");
+                }
+            }
+        }
+    }
+
+    /**
+     * The class literal of the path type, as the validator of EntityPathRegistry finds it : the value type of a map,
+     * the element type of a collection or an array, the wrapper of a primitive, the erasure of a generic type
+     */
+    private String pathTypeLiteral(TypeMirror type) {
+        if (type.getKind() == TypeKind.ARRAY) {
+            return classLiteral(((ArrayType) type).getComponentType());
+        }
+        TypeMirror erasure = processingEnv.getTypeUtils().erasure(type);
+        if (erasure.getKind() == TypeKind.DECLARED) {
+            if (isAssignable(erasure, "java.util.Map")) {
+                return classLiteral(typeArgument(type, 1));
+            } else if (isAssignable(erasure, "java.util.Collection")) {
+                return classLiteral(typeArgument(type, 0));
+            }
+        }
+        return classLiteral(type);
+    }
+
+    /**
+     * The class literal of the specified type : the wrapper of a primitive, the upper bound of a wildcard, the
+     * erasure of a generic type
+     */
+    private String classLiteral(TypeMirror type) {
+        if (type.getKind().isPrimitive()) {
+            return processingEnv.getTypeUtils().boxedClass((PrimitiveType) type).getQualifiedName() + ".class";
+        } else if (type.getKind() == TypeKind.WILDCARD) {
+            TypeMirror bound = ((WildcardType) type).getExtendsBound();
+            return bound == null ? "java.lang.Object.class" : classLiteral(bound);
+        }
+        TypeMirror erasure = processingEnv.getTypeUtils().erasure(type);
+        if (erasure.getKind() == TypeKind.DECLARED) {
+            return ((TypeElement) asElement(erasure)).getQualifiedName() + ".class";
+        }
+        return erasure + ".class";
+    }
+
+    /**
+     * @return the type argument of the declared field type at the specified index, Object for a raw type
+     */
+    private TypeMirror typeArgument(TypeMirror type, int index) {
+        List<? extends TypeMirror> arguments = ((DeclaredType) type).getTypeArguments();
+        return index < arguments.size() ? arguments.get(index)
+                : processingEnv.getElementUtils().getTypeElement("java.lang.Object").asType();
+    }
+
+    private boolean isAssignable(TypeMirror erasure, String className) {
+        TypeElement element = processingEnv.getElementUtils().getTypeElement(className);
+        return processingEnv.getTypeUtils().isAssignable(erasure, processingEnv.getTypeUtils().erasure(element.asType()));
+    }
+
+    /**
+     * Same as EntityPathRegistry : the embedded objects are the types which are not primitives, enums, arrays or
+     * java / bson types
+     */
+    private boolean isSimpleType(TypeMirror type) {
+        TypeMirror erasure = processingEnv.getTypeUtils().erasure(type);
+        if (erasure.getKind() != TypeKind.DECLARED) {
+            return true;
+        }
+        TypeElement element = (TypeElement) asElement(erasure);
+        String name = element.getQualifiedName().toString();
+        return element.getKind() == ElementKind.ENUM || name.startsWith("java.") || name.startsWith("org.bson.");
+    }
+
+    private boolean isClass(TypeMirror type) {
+        return type.getKind() == TypeKind.DECLARED && asElement(type) instanceof TypeElement;
+    }
+
+    private Element asElement(TypeMirror type) {
+        return type instanceof DeclaredType ? ((DeclaredType) type).asElement() : processingEnv.getTypeUtils().asElement(type);
+    }
+
+    private void writeServices() {
+        try {
+            FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "",
+                    "META-INF/services/" + TABLE_INTERFACE);
+            try (Writer writer = file.openWriter()) {
+                for (String table : tables) {
+                    writer.write(table);
+                    writer.write("\n");
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Could not register the path tables : " + e.getMessage());
+        }
+    }
+
+    /**
+     * Same as java.beans.Introspector.decapitalize, used for the root variable of the reflected paths
+     */
+    private static String decapitalize(String name) {
+        if (name.isEmpty() || (name.length() > 1 && Character.isUpperCase(name.charAt(1)) && Character.isUpperCase(name.charAt(0)))) {
+            return name;
+        }
+        return Character.toLowerCase(name.charAt(0)) + name.substring(1);
+    }
+}